@@ -0,0 +1,86 @@
+package sunyu.util;
+
+import com.fasterxml.jackson.databind.BeanDescription;
+import com.fasterxml.jackson.databind.DeserializationConfig;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializationConfig;
+import com.fasterxml.jackson.databind.cfg.MapperConfig;
+import com.fasterxml.jackson.databind.deser.Deserializers;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.ser.Serializers;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 注册编译期生成的处理器
+ * <p>
+ * 只匹配与生成时完全相同的类：子类可能有额外属性，交给 BeanSerializer 处理。
+ * 类或其父类配置了混入时，混入的注解会改变属性或整个类型的处理方式，生成的代码无法体现，同样回退到标准处理器。
+ * 混入在查找处理器时检查，构建后通过 getObjectMapper() 添加的混入在处理器缓存之前同样生效。
+ * </p>
+ *
+ * @author SunYu
+ */
+class CompiledCodecModule extends SimpleModule {
+    private static final long serialVersionUID = 1L;
+
+    private final Map<Class<?>, JsonSerializer<?>> serializers = new HashMap<>();
+    private final Map<Class<?>, JsonDeserializer<?>> deserializers = new HashMap<>();
+
+    CompiledCodecModule() {
+        super(CompiledCodecModule.class.getName());
+    }
+
+    /**
+     * 添加处理器，每个 JsonUtil 实例使用各自的序列化器和反序列化器
+     *
+     * @param codec 生成的处理器
+     */
+    void add(CompiledJsonCodec<?> codec) {
+        serializers.put(codec.type(), codec.serializer());
+        deserializers.put(codec.type(), codec.deserializer());
+    }
+
+    /**
+     * @return 是否没有任何处理器
+     */
+    boolean isEmpty() {
+        return serializers.isEmpty();
+    }
+
+    @Override
+    public void setupModule(SetupContext context) {
+        super.setupModule(context);
+        context.addSerializers(new Serializers.Base() {
+            @Override
+            public JsonSerializer<?> findSerializer(SerializationConfig config, JavaType type, BeanDescription beanDesc) {
+                return hasMixIn(config, type.getRawClass()) ? null : serializers.get(type.getRawClass());
+            }
+        });
+        context.addDeserializers(new Deserializers.Base() {
+            @Override
+            public JsonDeserializer<?> findBeanDeserializer(JavaType type, DeserializationConfig config,
+                                                            BeanDescription beanDesc) {
+                return hasMixIn(config, type.getRawClass()) ? null : deserializers.get(type.getRawClass());
+            }
+        });
+    }
+
+    /**
+     * 类或其父类是否配置了混入，只检查有处理器的类型
+     */
+    private boolean hasMixIn(MapperConfig<?> config, Class<?> type) {
+        if (!serializers.containsKey(type)) {
+            return false;
+        }
+        for (Class<?> c = type; c != null && c != Object.class; c = c.getSuperclass()) {
+            if (config.findMixInClassFor(c) != null) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,38 @@
+package sunyu.util;
+
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonSerializer;
+
+/**
+ * 编译期生成的 JSON 处理器
+ * <p>
+ * 由 {@link JsonCompiledProcessor} 为 {@link JsonCompiled} 标记的类生成，
+ * 并登记在 META-INF/services/sunyu.util.CompiledJsonCodec 中，JsonUtil 构建时自动注册。
+ * </p>
+ *
+ * @param <T> 处理的类型
+ *
+ * @author SunYu
+ */
+public interface CompiledJsonCodec<T> {
+    /**
+     * 获取处理的类型
+     *
+     * @return 类型
+     */
+    Class<T> type();
+
+    /**
+     * 创建序列化器，每个 JsonUtil 实例使用各自的序列化器
+     *
+     * @return 序列化器
+     */
+    JsonSerializer<T> serializer();
+
+    /**
+     * 创建反序列化器，每个 JsonUtil 实例使用各自的反序列化器
+     *
+     * @return 反序列化器
+     */
+    JsonDeserializer<T> deserializer();
+}
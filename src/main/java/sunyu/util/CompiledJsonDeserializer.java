@@ -0,0 +1,146 @@
+package sunyu.util;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import com.fasterxml.jackson.databind.deser.std.StringDeserializer;
+
+import java.io.IOException;
+
+/**
+ * 编译期生成的反序列化器基类
+ * <p>
+ * 子类由 {@link JsonCompiledProcessor} 生成，按字段名直接调用 setter，没有 setter 的 public 字段直接赋值。数值和布尔属性复用 StdDeserializer 的解析方法，
+ * 与标准反序列化器的类型转换规则一致（如 "1" 可转换为 Long）；其它类型在首次使用时从 ObjectMapper 查找处理器，
+ * 因此 LocalDate/LocalDateTime 等仍使用 JsonUtil 注册的反序列化器。未知字段按 FAIL_ON_UNKNOWN_PROPERTIES 配置处理。
+ * </p>
+ *
+ * @param <T> 处理的类型
+ *
+ * @author SunYu
+ */
+public abstract class CompiledJsonDeserializer<T> extends StdDeserializer<T> {
+    private static final long serialVersionUID = 1L;
+
+    private final TypeReference<?>[] delegateTypes;
+    private final JsonDeserializer<?>[] delegates;
+
+    /**
+     * String 反序列化器，为 null 表示尚未查找，为 StringDeserializer 时直接读取文本
+     */
+    private JsonDeserializer<?> stringDeserializer;
+
+    /**
+     * @param type          处理的类型
+     * @param delegateTypes 交给 ObjectMapper 处理的属性类型，按生成代码中的下标顺序
+     */
+    protected CompiledJsonDeserializer(Class<T> type, TypeReference<?>... delegateTypes) {
+        super(type);
+        this.delegateTypes = delegateTypes;
+        this.delegates = new JsonDeserializer<?>[delegateTypes.length];
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+        JsonToken t = p.currentToken();
+        if (t == JsonToken.START_OBJECT) {
+            t = p.nextToken();
+        } else if (t != JsonToken.FIELD_NAME && t != JsonToken.END_OBJECT) {
+            return (T) ctxt.handleUnexpectedToken(handledType(), p);
+        }
+        T bean = createBean();
+        for (; t == JsonToken.FIELD_NAME; t = p.nextToken()) {
+            String name = p.currentName();
+            p.nextToken();
+            if (!readField(bean, name, p, ctxt)) {
+                handleUnknownProperty(p, ctxt, bean, name);
+            }
+        }
+        return bean;
+    }
+
+    @Override
+    public boolean isCachable() {
+        return true;
+    }
+
+    /**
+     * 创建对象
+     *
+     * @return 新对象
+     */
+    protected abstract T createBean();
+
+    /**
+     * 读取一个字段的值并设置到对象，调用时解析器位于字段值上
+     *
+     * @param bean 对象
+     * @param name 字段名
+     * @param p    解析器
+     * @param ctxt 反序列化上下文
+     *
+     * @return 是否为已知字段
+     *
+     * @throws IOException 解析失败
+     */
+    protected abstract boolean readField(T bean, String name, JsonParser p, DeserializationContext ctxt)
+            throws IOException;
+
+    /**
+     * 读取字符串属性
+     *
+     * @param p    解析器
+     * @param ctxt 反序列化上下文
+     *
+     * @return 字符串，JSON null 返回 null
+     *
+     * @throws IOException 解析失败
+     */
+    protected final String readString(JsonParser p, DeserializationContext ctxt) throws IOException {
+        JsonToken t = p.currentToken();
+        if (t == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        JsonDeserializer<?> deser = stringDeserializer;
+        if (deser == null) {
+            // 开启字符串去重时 String 反序列化器被替换，需要交给它处理
+            deser = ctxt.findRootValueDeserializer(ctxt.constructType(String.class));
+            stringDeserializer = deser;
+        }
+        if (t == JsonToken.VALUE_STRING && deser.getClass() == StringDeserializer.class) {
+            return p.getText();
+        }
+        return (String) deser.deserialize(p, ctxt);
+    }
+
+    /**
+     * 读取交给 ObjectMapper 处理的属性
+     *
+     * @param index 属性类型下标
+     * @param p     解析器
+     * @param ctxt  反序列化上下文
+     *
+     * @param <V>   属性类型，与下标对应的类型一致
+     *
+     * @return 属性值
+     *
+     * @throws IOException 解析失败
+     */
+    @SuppressWarnings("unchecked")
+    protected final <V> V readValue(int index, JsonParser p, DeserializationContext ctxt) throws IOException {
+        JsonDeserializer<?> deser = delegates[index];
+        if (deser == null) {
+            // 首次使用时查找，避免类型之间相互引用时构建处理器陷入循环
+            deser = ctxt.findRootValueDeserializer(ctxt.getTypeFactory().constructType(delegateTypes[index]));
+            delegates[index] = deser;
+        }
+        if (p.currentToken() == JsonToken.VALUE_NULL) {
+            return (V) deser.getNullValue(ctxt);
+        }
+        return (V) deser.deserialize(p, ctxt);
+    }
+}
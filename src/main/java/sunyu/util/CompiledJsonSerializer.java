@@ -0,0 +1,96 @@
+package sunyu.util;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.jsontype.TypeSerializer;
+import com.fasterxml.jackson.databind.ser.BeanSerializerFactory;
+import com.fasterxml.jackson.databind.ser.FilterProvider;
+import com.fasterxml.jackson.databind.ser.ResolvableSerializer;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+
+/**
+ * 编译期生成的序列化器基类
+ * <p>
+ * 子类由 {@link JsonCompiledProcessor} 生成，按属性顺序直接调用 getter 写出字段，没有 getter 的 public 字段直接读取。
+ * 字段投影（{@link JsonUtil#objToJson(Object, String...)}）和多态类型需要逐个属性过滤或写出类型信息，
+ * 此时改用 Jackson 标准的 BeanSerializer，输出与未生成处理器时一致。
+ * </p>
+ *
+ * @param <T> 处理的类型
+ *
+ * @author SunYu
+ */
+public abstract class CompiledJsonSerializer<T> extends StdSerializer<T> {
+    private static final long serialVersionUID = 1L;
+
+    private transient volatile JsonSerializer<Object> fallback;
+
+    protected CompiledJsonSerializer(Class<T> type) {
+        super(type);
+    }
+
+    @Override
+    public final void serialize(T value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+        FilterProvider filters = provider.getFilterProvider();
+        if (filters != null && filters.findPropertyFilter(ProjectionFilter.FILTER_ID, value) != null) {
+            fallback(provider).serialize(value, gen, provider);
+            return;
+        }
+        gen.writeStartObject(value);
+        serializeFields(value, gen, provider);
+        gen.writeEndObject();
+    }
+
+    @Override
+    public void serializeWithType(T value, JsonGenerator gen, SerializerProvider provider, TypeSerializer typeSer)
+            throws IOException {
+        fallback(provider).serializeWithType(value, gen, provider, typeSer);
+    }
+
+    /**
+     * 写出全部非 null 属性
+     *
+     * @param bean     对象
+     * @param gen      生成器
+     * @param provider 序列化上下文
+     *
+     * @throws IOException 写出失败
+     */
+    protected abstract void serializeFields(T bean, JsonGenerator gen, SerializerProvider provider) throws IOException;
+
+    /**
+     * 写出一个交给 ObjectMapper 处理的属性，如日期时间、集合、嵌套对象
+     *
+     * @param name     字段名
+     * @param value    属性值，非 null
+     * @param gen      生成器
+     * @param provider 序列化上下文
+     *
+     * @throws IOException 写出失败
+     */
+    protected final void writeValue(SerializableString name, Object value, JsonGenerator gen,
+                                    SerializerProvider provider) throws IOException {
+        gen.writeFieldName(name);
+        provider.findValueSerializer(value.getClass(), null).serialize(value, gen, provider);
+    }
+
+    /**
+     * 获取 Jackson 标准的 BeanSerializer，不经过模块中注册的处理器，避免找回自身
+     */
+    private JsonSerializer<Object> fallback(SerializerProvider provider) throws JsonMappingException {
+        JsonSerializer<Object> ser = fallback;
+        if (ser == null) {
+            ser = BeanSerializerFactory.instance.createSerializer(provider, provider.constructType(handledType()));
+            if (ser instanceof ResolvableSerializer) {
+                ((ResolvableSerializer) ser).resolve(provider);
+            }
+            fallback = ser;
+        }
+        return ser;
+    }
+}
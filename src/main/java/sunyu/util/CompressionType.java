@@ -0,0 +1,27 @@
+package sunyu.util;
+
+/**
+ * 压缩格式
+ * <p>
+ * 读取时根据文件头自动识别，写入文件时根据扩展名选择（.gz、.gzip 为 GZIP，.zz、.zlib、.deflate 为 DEFLATE），
+ * 也可以在写入器、转换器上显式指定
+ * </p>
+ *
+ * @author SunYu
+ */
+public enum CompressionType {
+    /**
+     * 不压缩
+     */
+    NONE,
+
+    /**
+     * GZIP 格式（RFC 1952），文件头为 1f 8b
+     */
+    GZIP,
+
+    /**
+     * 带 zlib 头的 DEFLATE 格式（RFC 1950），即 DeflaterOutputStream 的默认输出
+     */
+    DEFLATE
+}
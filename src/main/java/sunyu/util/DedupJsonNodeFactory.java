@@ -0,0 +1,34 @@
+package sunyu.util;
+
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.TextNode;
+
+/**
+ * 去重 JsonNode 工厂
+ * <p>
+ * readTree 创建文本节点时复用内容相同的 TextNode，大数组中重复的字符串值只保留一份
+ * </p>
+ *
+ * @author SunYu
+ */
+class DedupJsonNodeFactory extends JsonNodeFactory {
+    private static final long serialVersionUID = 1L;
+
+    private final transient StringDeduplicator deduplicator;
+
+    DedupJsonNodeFactory(StringDeduplicator deduplicator) {
+        super(false);
+        this.deduplicator = deduplicator;
+    }
+
+    @Override
+    public TextNode textNode(String text) {
+        if (text == null) {
+            return null;
+        }
+        if (text.isEmpty()) {
+            return super.textNode(text);
+        }
+        return deduplicator.dedupNode(text);
+    }
+}
@@ -0,0 +1,43 @@
+package sunyu.util;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.deser.std.StdScalarDeserializer;
+import com.fasterxml.jackson.databind.deser.std.StringDeserializer;
+import com.fasterxml.jackson.databind.type.LogicalType;
+
+import java.io.IOException;
+
+/**
+ * 去重 String 反序列化器
+ * <p>
+ * 在标准 String 反序列化结果上做规范化，jsonToObj 生成的 POJO 字段和 Map 值复用相同的 String 实例
+ * </p>
+ *
+ * @author SunYu
+ */
+class DedupStringDeserializer extends StdScalarDeserializer<String> {
+    private static final long serialVersionUID = 1L;
+
+    private final transient StringDeduplicator deduplicator;
+
+    DedupStringDeserializer(StringDeduplicator deduplicator) {
+        super(String.class);
+        this.deduplicator = deduplicator;
+    }
+
+    @Override
+    public String deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+        return deduplicator.dedup(StringDeserializer.instance.deserialize(p, ctxt));
+    }
+
+    @Override
+    public LogicalType logicalType() {
+        return LogicalType.Textual;
+    }
+
+    @Override
+    public boolean isCachable() {
+        return true;
+    }
+}
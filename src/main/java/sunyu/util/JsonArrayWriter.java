@@ -0,0 +1,538 @@
+package sunyu.util;
+
+import cn.hutool.log.Log;
+import cn.hutool.log.LogFactory;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JSON 大数组流式写入器
+ * <p>
+ * 逐个或批量写入数组元素，元素使用 JsonUtil 的 ObjectMapper 序列化（时间格式、Long 转字符串、混入配置均生效），
+ * 写入后立即输出，不需要先收集到 List 再整体转换为字符串。可按元素数、字节数或时间间隔刷新输出。
+ * </p>
+ * <p>
+ * 默认在调用线程中同步写入，下游变慢时 write 直接阻塞在 I/O 上。设置队列容量后，元素由后台线程异步序列化写出，
+ * 队列满时 write 阻塞等待，tryWrite 在超时后返回 false，内存占用以队列容量为上限；
+ * 异步模式下元素交给写入器后不应再被修改。
+ * </p>
+ * <p>
+ * 通过 {@link JsonUtil#arrayWriter()} 创建，非线程安全，关闭时写入数组结尾并关闭输出目标。
+ * </p>
+ * <pre>
+ * try (JsonArrayWriter writer = jsonUtil.arrayWriter().wrapper("/data/items").flushEvery(1000).open(file)) {
+ *     for (Book book : books) {
+ *         writer.write(book);
+ *     }
+ * }
+ * </pre>
+ *
+ * @author SunYu
+ */
+public class JsonArrayWriter implements Closeable {
+    private final Log log = LogFactory.get();
+
+    /**
+     * 队列中表示 null 元素的占位对象
+     */
+    private static final Object NULL_ELEMENT = new Object();
+
+    /**
+     * 队列中表示结束的占位对象
+     */
+    private static final Object END = new Object();
+
+    private final JsonGenerator generator;
+    private final ObjectWriter elementWriter;
+    private final CountingOutputStream out;
+    private final String[] wrapperPath;
+    private final int flushElements;
+    private final long flushBytes;
+    private final long flushIntervalNanos;
+
+    private final BlockingQueue<Object> queue;
+    private final Thread worker;
+    private volatile IOException failure;
+    private boolean closed = false;
+
+    /**
+     * 只由写出元素的线程修改，其他线程读取
+     */
+    private volatile long count = 0;
+    private int elementsSinceFlush = 0;
+    private long lastFlushNanos = System.nanoTime();
+
+    private JsonArrayWriter(Builder builder, OutputStream target) throws IOException {
+        this.out = new CountingOutputStream(target);
+        this.generator = builder.objectMapper.getFactory().createGenerator(out, JsonEncoding.UTF8);
+        // 结尾由 close 显式写出，写入失败时不自动补全，避免截断的输出看起来完整
+        this.generator.disable(JsonGenerator.Feature.AUTO_CLOSE_JSON_CONTENT);
+        this.elementWriter = builder.objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        this.wrapperPath = builder.wrapperPath;
+        this.flushElements = builder.flushElements;
+        this.flushBytes = builder.flushBytes;
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(builder.flushIntervalMillis);
+
+        for (String name : wrapperPath) {
+            generator.writeStartObject();
+            generator.writeFieldName(name);
+        }
+        generator.writeStartArray();
+
+        if (builder.queueCapacity > 0) {
+            this.queue = new ArrayBlockingQueue<>(builder.queueCapacity);
+            this.worker = new Thread(this::drain, "JsonArrayWriter-" + Integer.toHexString(hashCode()));
+            this.worker.setDaemon(true);
+            this.worker.start();
+        } else {
+            this.queue = null;
+            this.worker = null;
+        }
+    }
+
+    /**
+     * 写入一个元素，异步模式下队列满时阻塞等待
+     *
+     * @param element 元素，可以为 null
+     *
+     * @throws IOException 写入失败或写入器已关闭
+     */
+    public void write(Object element) throws IOException {
+        ensureOpen();
+        if (queue == null) {
+            writeSync(element);
+            return;
+        }
+        try {
+            queue.put(element == null ? NULL_ELEMENT : element);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("等待写入队列时被中断");
+        }
+    }
+
+    /**
+     * 尝试写入一个元素，异步模式下队列满且超时后返回 false，调用方可据此降速或丢弃
+     *
+     * @param element 元素，可以为 null
+     * @param timeout 等待时间
+     * @param unit    时间单位
+     *
+     * @return 是否已写入（或已进入写入队列）
+     *
+     * @throws IOException 写入失败或写入器已关闭
+     */
+    public boolean tryWrite(Object element, long timeout, TimeUnit unit) throws IOException {
+        ensureOpen();
+        if (queue == null) {
+            writeSync(element);
+            return true;
+        }
+        try {
+            return queue.offer(element == null ? NULL_ELEMENT : element, timeout, unit);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("等待写入队列时被中断");
+        }
+    }
+
+    /**
+     * 批量写入元素
+     *
+     * @param elements 元素集合
+     *
+     * @throws IOException 写入失败或写入器已关闭
+     */
+    public void writeAll(Iterable<?> elements) throws IOException {
+        for (Object element : elements) {
+            write(element);
+        }
+    }
+
+    /**
+     * 立即刷新输出，异步模式下等待队列中已有元素全部写出
+     *
+     * @throws IOException 写入失败或写入器已关闭
+     */
+    public void flush() throws IOException {
+        ensureOpen();
+        if (queue == null) {
+            flushNow();
+            return;
+        }
+        FlushRequest request = new FlushRequest();
+        try {
+            queue.put(request);
+            while (!request.done.await(100, TimeUnit.MILLISECONDS)) {
+                if (!worker.isAlive()) {
+                    break;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("等待刷新时被中断");
+        }
+        ensureOpen();
+    }
+
+    /**
+     * 获取已写出的元素数量，异步模式下不包括队列中等待的元素
+     *
+     * @return 元素数量
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * 获取写入队列中等待的元素数量，可用于观察下游是否变慢
+     *
+     * @return 等待的元素数量，同步模式下返回 0
+     */
+    public int getPending() {
+        return queue == null ? 0 : queue.size();
+    }
+
+    /**
+     * 写入数组结尾和外层对象结尾，关闭输出目标
+     *
+     * @throws IOException 写入失败
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (worker != null) {
+            try {
+                // 后台线程异常退出后不再取出元素，队列可能一直是满的
+                while (!queue.offer(END, 100, TimeUnit.MILLISECONDS)) {
+                    if (!worker.isAlive()) {
+                        break;
+                    }
+                }
+                worker.join();
+            } catch (InterruptedException e) {
+                // JsonGenerator 非线程安全，后台线程退出前不能写入结尾或关闭生成器；
+                // 中断后后台线程记录失败并退出，这里不再响应中断，等待其结束
+                worker.interrupt();
+                while (worker.isAlive()) {
+                    try {
+                        worker.join();
+                    } catch (InterruptedException ignored) {
+                        // 继续等待，退出后恢复中断状态
+                    }
+                }
+                Thread.currentThread().interrupt();
+            }
+        }
+        IOException error = failure;
+        try {
+            if (error == null) {
+                generator.writeEndArray();
+                for (int i = 0; i < wrapperPath.length; i++) {
+                    generator.writeEndObject();
+                }
+            }
+        } catch (IOException e) {
+            error = e;
+        } finally {
+            try {
+                generator.close();
+            } catch (IOException | RuntimeException e) {
+                // 保留最初的失败原因
+                if (error == null) {
+                    error = e instanceof IOException ? (IOException) e : new IOException("关闭 JSON 数组输出失败", e);
+                } else {
+                    error.addSuppressed(e);
+                }
+            }
+        }
+        if (error != null) {
+            throw error;
+        }
+    }
+
+    private void ensureOpen() throws IOException {
+        if (failure != null) {
+            throw failure;
+        }
+        if (closed) {
+            throw new IOException("JsonArrayWriter 已关闭");
+        }
+    }
+
+    /**
+     * 同步模式下在调用线程中写出，失败后写入器不再可用
+     */
+    private void writeSync(Object element) throws IOException {
+        try {
+            writeElement(element);
+        } catch (IOException e) {
+            failure = e;
+            throw e;
+        } catch (RuntimeException e) {
+            failure = new IOException("写入 JSON 数组元素失败", e);
+            throw failure;
+        }
+    }
+
+    private void writeElement(Object element) throws IOException {
+        elementWriter.writeValue(generator, element);
+        count++;
+        elementsSinceFlush++;
+        if ((flushElements > 0 && elementsSinceFlush >= flushElements)
+                || (flushBytes > 0 && out.count >= flushBytes)
+                || (flushIntervalNanos > 0 && System.nanoTime() - lastFlushNanos >= flushIntervalNanos)) {
+            flushNow();
+        }
+    }
+
+    private void flushNow() throws IOException {
+        generator.flush();
+        elementsSinceFlush = 0;
+        out.count = 0;
+        lastFlushNanos = System.nanoTime();
+    }
+
+    /**
+     * 后台线程：从队列取出元素写出，空闲时按时间间隔刷新
+     */
+    private void drain() {
+        long pollNanos = flushIntervalNanos > 0 ? flushIntervalNanos : TimeUnit.SECONDS.toNanos(1);
+        try {
+            while (true) {
+                Object element = queue.poll(pollNanos, TimeUnit.NANOSECONDS);
+                if (element == END) {
+                    return;
+                }
+                if (element instanceof FlushRequest) {
+                    flushNow();
+                    ((FlushRequest) element).done.countDown();
+                } else if (element != null) {
+                    writeElement(element == NULL_ELEMENT ? null : element);
+                } else if (flushIntervalNanos > 0 && elementsSinceFlush > 0) {
+                    flushNow();
+                }
+            }
+        } catch (IOException e) {
+            log.error("写入 JSON 数组元素失败 {}", e);
+            failure = e;
+        } catch (RuntimeException e) {
+            log.error("写入 JSON 数组元素失败 {}", e);
+            failure = new IOException("写入 JSON 数组元素失败", e);
+        } catch (InterruptedException e) {
+            failure = new InterruptedIOException("写入线程被中断");
+        } finally {
+            // 写入失败后丢弃剩余元素，唤醒等待中的生产者和刷新请求
+            if (failure != null) {
+                Object element;
+                while ((element = queue.poll()) != null) {
+                    if (element instanceof FlushRequest) {
+                        ((FlushRequest) element).done.countDown();
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * 刷新请求，后台线程刷新完成后通知调用方
+     */
+    private static class FlushRequest {
+        private final CountDownLatch done = new CountDownLatch(1);
+    }
+
+    /**
+     * 统计自上次刷新以来写出的字节数
+     */
+    private static class CountingOutputStream extends FilterOutputStream {
+        private volatile long count;
+
+        private CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+    }
+
+    /**
+     * 构建器类，用于配置并打开 JsonArrayWriter
+     */
+    public static class Builder {
+        private final ObjectMapper objectMapper;
+        private final JsonCompression compression;
+        private CompressionType outputCompression;
+        private String[] wrapperPath = new String[0];
+        private int flushElements = 0;
+        private long flushBytes = 0;
+        private long flushIntervalMillis = 0;
+        private int queueCapacity = 0;
+
+        Builder(ObjectMapper objectMapper, JsonCompression compression) {
+            this.objectMapper = objectMapper;
+            this.compression = compression;
+        }
+
+        /**
+         * 将数组写在外层对象的指定路径下，如 "/data/items" 输出 {"data":{"items":[...]}}
+         *
+         * @param jsonPtrExpr JSON Pointer 表达式，各段均为字段名
+         *
+         * @return Builder 实例
+         */
+        public Builder wrapper(String jsonPtrExpr) {
+            if (jsonPtrExpr == null) {
+                throw new IllegalArgumentException("路径表达式不能为空");
+            }
+            String path = jsonPtrExpr.startsWith("/") ? jsonPtrExpr.substring(1) : jsonPtrExpr;
+            this.wrapperPath = Arrays.stream(path.split("/"))
+                    .filter(s -> !s.isEmpty())
+                    .map(s -> s.replace("~1", "/").replace("~0", "~"))
+                    .toArray(String[]::new);
+            return this;
+        }
+
+        /**
+         * 每写入指定数量的元素刷新一次
+         *
+         * @param elements 元素数量，0 表示不按数量刷新
+         *
+         * @return Builder 实例
+         */
+        public Builder flushEvery(int elements) {
+            if (elements < 0) {
+                throw new IllegalArgumentException("元素数量不能小于0");
+            }
+            this.flushElements = elements;
+            return this;
+        }
+
+        /**
+         * 写出的字节数达到指定值时刷新一次
+         *
+         * @param bytes 字节数，0 表示不按字节数刷新
+         *
+         * @return Builder 实例
+         */
+        public Builder flushBytes(long bytes) {
+            if (bytes < 0) {
+                throw new IllegalArgumentException("字节数不能小于0");
+            }
+            this.flushBytes = bytes;
+            return this;
+        }
+
+        /**
+         * 距上次刷新超过指定时间后刷新，异步模式下空闲时也会按时刷新
+         *
+         * @param millis 时间间隔（毫秒），0 表示不按时间刷新
+         *
+         * @return Builder 实例
+         */
+        public Builder flushInterval(long millis) {
+            if (millis < 0) {
+                throw new IllegalArgumentException("时间间隔不能小于0");
+            }
+            this.flushIntervalMillis = millis;
+            return this;
+        }
+
+        /**
+         * 开启异步写入，元素先进入有界队列，由后台线程序列化写出
+         *
+         * @param capacity 队列容量，0 表示同步写入
+         *
+         * @return Builder 实例
+         */
+        public Builder queueCapacity(int capacity) {
+            if (capacity < 0) {
+                throw new IllegalArgumentException("队列容量不能小于0");
+            }
+            this.queueCapacity = capacity;
+            return this;
+        }
+
+        /**
+         * 指定输出压缩格式，未指定时输出文件按扩展名选择（如 .gz），输出流和通道不压缩
+         * <p>
+         * 压缩输出使用同步刷新，每次刷新后已写出的元素都可以被下游完整解压；flushBytes 按压缩前的字节数计算。
+         * </p>
+         *
+         * @param type 压缩格式
+         *
+         * @return Builder 实例
+         */
+        public Builder compress(CompressionType type) {
+            this.outputCompression = type;
+            return this;
+        }
+
+        /**
+         * 打开写入器，输出到文件
+         *
+         * @param file 输出文件
+         *
+         * @return JsonArrayWriter 实例
+         *
+         * @throws IOException 打开文件失败
+         */
+        public JsonArrayWriter open(File file) throws IOException {
+            return new JsonArrayWriter(this, compression.create(file, outputCompression));
+        }
+
+        /**
+         * 打开写入器，输出到流，关闭写入器时关闭该流
+         *
+         * @param out 输出流
+         *
+         * @return JsonArrayWriter 实例
+         *
+         * @throws IOException 写入失败
+         */
+        public JsonArrayWriter open(OutputStream out) throws IOException {
+            return new JsonArrayWriter(this, compression.compress(out, outputCompression, true));
+        }
+
+        /**
+         * 打开写入器，输出到通道，关闭写入器时关闭该通道
+         *
+         * @param channel 输出通道
+         *
+         * @return JsonArrayWriter 实例
+         *
+         * @throws IOException 写入失败
+         */
+        public JsonArrayWriter open(WritableByteChannel channel) throws IOException {
+            return open(Channels.newOutputStream(channel));
+        }
+    }
+}
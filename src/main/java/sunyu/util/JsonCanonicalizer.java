@@ -0,0 +1,561 @@
+package sunyu.util;
+
+import com.fasterxml.jackson.core.Base64Variants;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 规范化 JSON 输出
+ * <p>
+ * 从 JsonParser 的事件流生成规范形式的 UTF-8 字节，参照 RFC 8785（JCS）：
+ * 无空白；对象字段按 UTF-16 码元顺序排序；字符串只转义引号、反斜杠和控制字符，其余字符原样输出，
+ * 孤立的代理字符转义为 \\uXXXX；数值按值规范化，1、1.0、1e0 输出相同。
+ * </p>
+ * <p>
+ * 与 JCS 相同，所有数值（包括 long、BigInteger、BigDecimal）都按 double 取值，输出 ECMAScript Number.prototype.toString 的形式：
+ * 取能还原为同一 double 的最短十进制数字（JDK 19 之前的 Double.toString 不保证最短），
+ * 绝对值在 [1e-6, 1e21) 内使用普通写法，其余使用 1e+21、1.5e-7 这样的指数写法。
+ * 因此同一数值无论来自对象、readTree 后的 JsonNode 还是 JSON 文本，输出都相同；代价是超出 2^53 的整数和
+ * 超过 17 位有效数字的小数会按 double 舍入，只在这些位上不同的数值规范形式相同。
+ * Long 包装类型按 objToJson 的规则输出为字符串，不受影响。float 按其最短十进制写法取 double，与序列化为文本后再读取的结果一致。
+ * </p>
+ * <p>
+ * 计算摘要时字节按块直接送入 MessageDigest，不生成 String 或 JsonNode。
+ * 只有对象的字段需要排序：字段值先写入该层对象的缓冲区，排序后整体写出，数组元素直接输出；
+ * 各层缓冲区在一次计算中复用，内存占用与最大对象规范化后的大小成正比。根为对象时整个文档都会进入缓冲区。
+ * </p>
+ *
+ * @author SunYu
+ */
+final class JsonCanonicalizer {
+    private static final byte[] NULL = {'n', 'u', 'l', 'l'};
+    private static final byte[] TRUE = {'t', 'r', 'u', 'e'};
+    private static final byte[] FALSE = {'f', 'a', 'l', 's', 'e'};
+    private static final byte[] HEX = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+
+    /**
+     * 摘要缓冲区大小，写满后送入摘要
+     */
+    private static final int CHUNK = 8192;
+
+    /**
+     * 绝对值不超过 2^53 的整数转换为 double 不丢失精度，直接按 long 输出
+     */
+    private static final long MAX_SAFE_INTEGER = 1L << 53;
+
+    /**
+     * 小于该值的整数值 double 直接按 long 输出
+     */
+    private static final double MAX_EXACT_LONG = 1e15;
+
+    /**
+     * 有效数字不超过该位数的十进制数与正规 double 一一对应
+     */
+    private static final int UNIQUE_DIGITS = 15;
+
+    /**
+     * 任意 double 都能由该位数的十进制数还原
+     */
+    private static final int MAX_DIGITS = 17;
+
+    private final ObjectMapper objectMapper;
+
+    JsonCanonicalizer(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * 读取解析器中的第一个值，计算规范形式的摘要
+     *
+     * @param parser 解析器
+     * @param digest 摘要算法实例
+     *
+     * @return 摘要，没有值时返回 null
+     *
+     * @throws IOException 解析失败
+     */
+    byte[] digest(JsonParser parser, MessageDigest digest) throws IOException {
+        JsonToken token = parser.nextToken();
+        if (token == null) {
+            return null;
+        }
+        Sink sink = new Sink(digest, CHUNK);
+        new Context().write(parser, token, sink, 0);
+        sink.flush();
+        return digest.digest();
+    }
+
+    /**
+     * 读取解析器中的第一个值，生成规范形式的 JSON 字符串
+     *
+     * @param parser 解析器
+     *
+     * @return 规范 JSON，没有值时返回 null
+     *
+     * @throws IOException 解析失败
+     */
+    String toString(JsonParser parser) throws IOException {
+        JsonToken token = parser.nextToken();
+        if (token == null) {
+            return null;
+        }
+        Sink sink = new Sink(null, 256);
+        new Context().write(parser, token, sink, 0);
+        return new String(sink.data, 0, sink.size, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 一次计算的状态：按对象嵌套深度复用的字段缓冲区和字符串缓冲区
+     */
+    private final class Context {
+        private final List<Level> levels = new ArrayList<>();
+        private char[] chars = new char[64];
+
+        void write(JsonParser parser, JsonToken token, Sink out, int depth) throws IOException {
+            switch (token) {
+                case START_OBJECT:
+                    writeObject(parser, out, depth);
+                    break;
+                case START_ARRAY:
+                    out.write('[');
+                    boolean first = true;
+                    for (JsonToken t = parser.nextToken(); t != JsonToken.END_ARRAY; t = parser.nextToken()) {
+                        if (!first) {
+                            out.write(',');
+                        }
+                        first = false;
+                        write(parser, t, out, depth);
+                    }
+                    out.write(']');
+                    break;
+                case VALUE_STRING:
+                    if (parser.hasTextCharacters()) {
+                        out.writeString(parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength());
+                    } else {
+                        writeString(parser.getText(), out);
+                    }
+                    break;
+                case VALUE_NUMBER_INT:
+                    writeInteger(parser, out);
+                    break;
+                case VALUE_NUMBER_FLOAT:
+                    writeFloat(parser, out);
+                    break;
+                case VALUE_TRUE:
+                    out.write(TRUE, 0, TRUE.length);
+                    break;
+                case VALUE_FALSE:
+                    out.write(FALSE, 0, FALSE.length);
+                    break;
+                case VALUE_NULL:
+                    out.write(NULL, 0, NULL.length);
+                    break;
+                case VALUE_EMBEDDED_OBJECT:
+                    writeEmbedded(parser.getEmbeddedObject(), out, depth);
+                    break;
+                default:
+                    throw new IOException("无法规范化的 JSON 事件: " + token);
+            }
+        }
+
+        /**
+         * 字段值依次写入本层缓冲区并记录结束位置，按字段名排序后整体写出
+         */
+        private void writeObject(JsonParser parser, Sink out, int depth) throws IOException {
+            if (levels.size() == depth) {
+                levels.add(new Level());
+            }
+            Level level = levels.get(depth);
+            level.reset();
+            for (JsonToken t = parser.nextToken(); t != JsonToken.END_OBJECT; t = parser.nextToken()) {
+                String name = parser.currentName();
+                write(parser, parser.nextToken(), level.values, depth + 1);
+                level.add(name);
+            }
+            int[] order = level.sort();
+            out.write('{');
+            for (int k = 0; k < level.count; k++) {
+                if (k > 0) {
+                    out.write(',');
+                }
+                int i = order[k];
+                int start = i == 0 ? 0 : level.ends[i - 1];
+                writeString(level.names[i], out);
+                out.write(':');
+                out.write(level.values.data, start, level.ends[i] - start);
+            }
+            out.write('}');
+        }
+
+        /**
+         * 整数按 double 取值，2^53 以内的整数与 double 一一对应，直接输出
+         */
+        private void writeInteger(JsonParser parser, Sink out) throws IOException {
+            JsonParser.NumberType type = parser.getNumberType();
+            if (type != JsonParser.NumberType.BIG_INTEGER) {
+                long value = parser.getLongValue();
+                if (value >= -MAX_SAFE_INTEGER && value <= MAX_SAFE_INTEGER) {
+                    out.writeLong(value);
+                    return;
+                }
+            }
+            writeDouble(parser.getDoubleValue(), out);
+        }
+
+        private void writeFloat(JsonParser parser, Sink out) throws IOException {
+            if (parser.getNumberType() == JsonParser.NumberType.FLOAT) {
+                // float 序列化为文本时输出 Float.toString，按该写法取 double，避免扩展为 double 后出现多余位数
+                float value = parser.getFloatValue();
+                writeDouble(Float.isNaN(value) || Float.isInfinite(value) ? value : Double.parseDouble(Float.toString(value)), out);
+            } else {
+                // BigDecimal 同样按 double 取值，与文本读取时的结果一致
+                writeDouble(parser.getDoubleValue(), out);
+            }
+        }
+
+        private void writeDouble(double value, Sink out) {
+            if (Double.isNaN(value) || Double.isInfinite(value)) {
+                // NaN、Infinity 不是合法的 JSON 数值，与 Jackson 默认输出一致，按字符串处理
+                writeString(Double.toString(value), out);
+            } else if (value == Math.rint(value) && Math.abs(value) < MAX_EXACT_LONG) {
+                out.writeLong((long) value);
+            } else {
+                String text = Double.toString(value);
+                // Double.toString 在 [1e-3, 1e7) 内使用普通写法，末尾不是 0 且有效数字不超过 15 位时即为最短形式，
+                // 与 ECMAScript 的输出相同
+                if (text.indexOf('E') < 0 && text.charAt(text.length() - 1) != '0'
+                        && significantDigits(text) <= UNIQUE_DIGITS) {
+                    out.writeAscii(text);
+                } else {
+                    writeDecimal(shortest(value), out);
+                }
+            }
+        }
+
+        /**
+         * TokenBuffer 和 JsonNode 中的嵌入对象：二进制按 Base64 字符串输出，其余对象转换为树后输出
+         */
+        private void writeEmbedded(Object value, Sink out, int depth) throws IOException {
+            if (value == null) {
+                out.write(NULL, 0, NULL.length);
+            } else if (value instanceof byte[]) {
+                writeString(Base64Variants.getDefaultVariant().encode((byte[]) value), out);
+            } else {
+                try (JsonParser parser = objectMapper.treeAsTokens(objectMapper.valueToTree(value))) {
+                    write(parser, parser.nextToken(), out, depth);
+                }
+            }
+        }
+
+        private void writeString(String value, Sink out) {
+            int length = value.length();
+            if (chars.length < length) {
+                chars = new char[Math.max(length, chars.length * 2)];
+            }
+            value.getChars(0, length, chars, 0);
+            out.writeString(chars, 0, length);
+        }
+    }
+
+    /**
+     * 按 ECMAScript Number.prototype.toString 的规则输出：数值为 0.digits × 10^n，
+     * -6 &lt; n &lt;= 21 时使用普通写法，否则使用 d.ddde±x 形式的指数写法
+     */
+    private static void writeDecimal(BigDecimal value, Sink out) {
+        if (value.signum() == 0) {
+            out.write('0');
+            return;
+        }
+        BigDecimal stripped = value.stripTrailingZeros();
+        String digits = stripped.unscaledValue().abs().toString();
+        int k = digits.length();
+        int n = stripped.precision() - stripped.scale();
+        StringBuilder sb = new StringBuilder(k + 8);
+        if (stripped.signum() < 0) {
+            sb.append('-');
+        }
+        if (k <= n && n <= 21) {
+            sb.append(digits);
+            for (int i = k; i < n; i++) {
+                sb.append('0');
+            }
+        } else if (0 < n && n <= 21) {
+            sb.append(digits, 0, n).append('.').append(digits, n, k);
+        } else if (-6 < n && n <= 0) {
+            sb.append("0.");
+            for (int i = n; i < 0; i++) {
+                sb.append('0');
+            }
+            sb.append(digits);
+        } else {
+            sb.append(digits.charAt(0));
+            if (k > 1) {
+                sb.append('.').append(digits, 1, k);
+            }
+            sb.append('e').append(n - 1 < 0 ? '-' : '+').append(Math.abs(n - 1));
+        }
+        out.writeAscii(sb.toString());
+    }
+
+    /**
+     * 求能还原为 value 的最短十进制数，位数相同时取最接近 value 的，仍相同时取末位为偶数的
+     * <p>
+     * 正规 double 不超过 15 位的十进制表示唯一，15 位找不到时更短的也不存在，直接从 15 位开始查找；
+     * 每个位数只需检查向下和向上舍入两个相邻值，能还原的区间是连续的。
+     * </p>
+     */
+    private static BigDecimal shortest(double value) {
+        BigDecimal exact = new BigDecimal(value);
+        int start = Math.abs(value) >= Double.MIN_NORMAL ? UNIQUE_DIGITS : 1;
+        for (int digits = start; digits < MAX_DIGITS; digits++) {
+            BigDecimal floor = exact.round(new MathContext(digits, RoundingMode.FLOOR));
+            BigDecimal ceiling = exact.round(new MathContext(digits, RoundingMode.CEILING));
+            boolean floorMatches = floor.doubleValue() == value;
+            boolean ceilingMatches = ceiling.doubleValue() == value;
+            if (floorMatches && ceilingMatches && floor.compareTo(ceiling) != 0) {
+                int cmp = exact.subtract(floor).compareTo(ceiling.subtract(exact));
+                if (cmp == 0) {
+                    return floor.unscaledValue().testBit(0) ? ceiling : floor;
+                }
+                return cmp < 0 ? floor : ceiling;
+            } else if (floorMatches) {
+                return floor;
+            } else if (ceilingMatches) {
+                return ceiling;
+            }
+        }
+        return exact.round(new MathContext(MAX_DIGITS, RoundingMode.HALF_EVEN));
+    }
+
+    /**
+     * 普通写法的数字字符串中的有效数字位数
+     */
+    private static int significantDigits(String text) {
+        int count = 0;
+        boolean leading = true;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c >= '1' && c <= '9' || c == '0' && !leading) {
+                leading = false;
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 一层对象的字段缓冲区，字段值连续存放，第 i 个字段值的结束位置为 ends[i]
+     */
+    private static final class Level {
+        final Sink values = new Sink(null, 256);
+        String[] names = new String[16];
+        int[] ends = new int[16];
+        int[] order = new int[16];
+        int count;
+
+        void reset() {
+            values.size = 0;
+            count = 0;
+        }
+
+        void add(String name) {
+            if (count == names.length) {
+                names = Arrays.copyOf(names, count * 2);
+                ends = Arrays.copyOf(ends, count * 2);
+                order = Arrays.copyOf(order, count * 2);
+            }
+            names[count] = name;
+            ends[count] = values.size;
+            count++;
+        }
+
+        /**
+         * 按字段名排序，返回字段下标顺序；字段较少时使用插入排序，已有序时不移动
+         */
+        int[] sort() {
+            for (int i = 0; i < count; i++) {
+                order[i] = i;
+            }
+            if (count <= 32) {
+                for (int i = 1; i < count; i++) {
+                    int current = order[i];
+                    int j = i - 1;
+                    while (j >= 0 && names[order[j]].compareTo(names[current]) > 0) {
+                        order[j + 1] = order[j];
+                        j--;
+                    }
+                    order[j + 1] = current;
+                }
+            } else {
+                Integer[] boxed = new Integer[count];
+                for (int i = 0; i < count; i++) {
+                    boxed[i] = i;
+                }
+                Arrays.sort(boxed, (a, b) -> names[a].compareTo(names[b]));
+                for (int i = 0; i < count; i++) {
+                    order[i] = boxed[i];
+                }
+            }
+            return order;
+        }
+    }
+
+    /**
+     * 字节输出缓冲区，指定摘要时缓冲区写满即送入摘要并清空
+     */
+    private static final class Sink {
+        private final MessageDigest digest;
+        private byte[] data;
+        private int size;
+
+        Sink(MessageDigest digest, int capacity) {
+            this.digest = digest;
+            this.data = new byte[capacity];
+        }
+
+        void write(int b) {
+            ensure(1);
+            data[size++] = (byte) b;
+        }
+
+        void write(byte[] b, int off, int len) {
+            if (digest != null && len >= data.length) {
+                flush();
+                digest.update(b, off, len);
+                return;
+            }
+            ensure(len);
+            System.arraycopy(b, off, data, size, len);
+            size += len;
+        }
+
+        void writeAscii(String s) {
+            int len = s.length();
+            ensure(len);
+            for (int i = 0; i < len; i++) {
+                data[size++] = (byte) s.charAt(i);
+            }
+        }
+
+        void writeLong(long v) {
+            if (v == Long.MIN_VALUE) {
+                writeAscii(Long.toString(v));
+                return;
+            }
+            ensure(20);
+            if (v < 0) {
+                data[size++] = '-';
+                v = -v;
+            }
+            int start = size;
+            do {
+                data[size++] = (byte) ('0' + v % 10);
+                v /= 10;
+            } while (v != 0);
+            // 反转数字
+            for (int i = start, j = size - 1; i < j; i++, j--) {
+                byte t = data[i];
+                data[i] = data[j];
+                data[j] = t;
+            }
+        }
+
+        void writeString(char[] chars, int offset, int length) {
+            // 每个字符最多 6 个字节（\\uXXXX）
+            ensure(length * 6 + 2);
+            byte[] d = data;
+            int p = size;
+            d[p++] = '"';
+            int end = offset + length;
+            for (int i = offset; i < end; i++) {
+                char c = chars[i];
+                if (c >= 0x20 && c < 0x80) {
+                    if (c == '"' || c == '\\') {
+                        d[p++] = '\\';
+                    }
+                    d[p++] = (byte) c;
+                } else if (c < 0x20) {
+                    d[p++] = '\\';
+                    switch (c) {
+                        case '\b':
+                            d[p++] = 'b';
+                            break;
+                        case '\f':
+                            d[p++] = 'f';
+                            break;
+                        case '\n':
+                            d[p++] = 'n';
+                            break;
+                        case '\r':
+                            d[p++] = 'r';
+                            break;
+                        case '\t':
+                            d[p++] = 't';
+                            break;
+                        default:
+                            p = unicodeEscape(d, p, c);
+                    }
+                } else if (c < 0x800) {
+                    d[p++] = (byte) (0xc0 | (c >> 6));
+                    d[p++] = (byte) (0x80 | (c & 0x3f));
+                } else if (Character.isHighSurrogate(c) && i + 1 < end && Character.isLowSurrogate(chars[i + 1])) {
+                    int cp = Character.toCodePoint(c, chars[++i]);
+                    d[p++] = (byte) (0xf0 | (cp >> 18));
+                    d[p++] = (byte) (0x80 | ((cp >> 12) & 0x3f));
+                    d[p++] = (byte) (0x80 | ((cp >> 6) & 0x3f));
+                    d[p++] = (byte) (0x80 | (cp & 0x3f));
+                } else if (Character.isSurrogate(c)) {
+                    // 孤立的代理字符无法编码为 UTF-8
+                    d[p++] = '\\';
+                    p = unicodeEscape(d, p, c);
+                } else {
+                    d[p++] = (byte) (0xe0 | (c >> 12));
+                    d[p++] = (byte) (0x80 | ((c >> 6) & 0x3f));
+                    d[p++] = (byte) (0x80 | (c & 0x3f));
+                }
+            }
+            d[p++] = '"';
+            size = p;
+        }
+
+        private static int unicodeEscape(byte[] d, int p, char c) {
+            d[p++] = 'u';
+            d[p++] = HEX[(c >> 12) & 0xf];
+            d[p++] = HEX[(c >> 8) & 0xf];
+            d[p++] = HEX[(c >> 4) & 0xf];
+            d[p++] = HEX[c & 0xf];
+            return p;
+        }
+
+        void flush() {
+            if (digest != null && size > 0) {
+                digest.update(data, 0, size);
+                size = 0;
+            }
+        }
+
+        private void ensure(int n) {
+            if (size + n <= data.length) {
+                return;
+            }
+            if (digest != null) {
+                flush();
+                if (n <= data.length) {
+                    return;
+                }
+            }
+            data = Arrays.copyOf(data, Math.max(size + n, data.length * 2));
+        }
+    }
+}
@@ -0,0 +1,440 @@
+package sunyu.util;
+
+import cn.hutool.core.util.StrUtil;
+import cn.hutool.log.Log;
+import cn.hutool.log.LogFactory;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonPointer;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * JSON 对象数组列式读取器
+ * <p>
+ * 流式读取指定路径下的对象数组，一次遍历将选中的字段写入基本类型列（long[]、int[]、double[]、字典编码的字符串列），
+ * 不创建 JsonNode 或 POJO，数值不装箱，适用于只需要少数几列的大数组分析导出。
+ * 与 JsonUtil 的 Long 输出为字符串约定一致，long/int 列同时接受数字和数字字符串。
+ * </p>
+ * <p>
+ * 列路径相对于数组元素，使用 JSON Pointer 格式，如 "/price"、"/author/name"（开头的 / 可以省略），只能经过对象字段。
+ * 通过 {@link JsonUtil#columnReader(String)} 创建，配置完成后可被多个线程同时使用。
+ * </p>
+ * <pre>
+ * JsonColumns columns = jsonUtil.columnReader("/library/books")
+ *         .longColumn("id").stringColumn("title").doubleColumn("price")
+ *         .read(file);
+ * double[] prices = columns.getDoubles("price");
+ * </pre>
+ *
+ * @author SunYu
+ */
+public class JsonColumnReader {
+    private final Log log = LogFactory.get();
+    private final JsonFactory jsonFactory;
+    private final JsonCompression compression;
+    private final String jsonPtrExpr;
+    private final List<String> arrayPath;
+
+    private static final int LONG = 0;
+    private static final int INT = 1;
+    private static final int DOUBLE = 2;
+    private static final int STRING = 3;
+
+    private final List<String> names = new ArrayList<>();
+    private final List<Integer> kinds = new ArrayList<>();
+
+    /**
+     * 列数组初始容量
+     */
+    private int expectedSize = 1024;
+
+    JsonColumnReader(JsonFactory jsonFactory, JsonCompression compression, String jsonPtrExpr) {
+        this.jsonFactory = jsonFactory;
+        this.compression = compression;
+        this.jsonPtrExpr = jsonPtrExpr == null ? "" : jsonPtrExpr;
+        this.arrayPath = segments(this.jsonPtrExpr);
+    }
+
+    /**
+     * 添加 long 列
+     *
+     * @param path 字段路径
+     *
+     * @return 当前实例
+     */
+    public JsonColumnReader longColumn(String path) {
+        return addColumn(path, LONG);
+    }
+
+    /**
+     * 添加 int 列，超出 int 范围的值记为 null
+     *
+     * @param path 字段路径
+     *
+     * @return 当前实例
+     */
+    public JsonColumnReader intColumn(String path) {
+        return addColumn(path, INT);
+    }
+
+    /**
+     * 添加 double 列
+     *
+     * @param path 字段路径
+     *
+     * @return 当前实例
+     */
+    public JsonColumnReader doubleColumn(String path) {
+        return addColumn(path, DOUBLE);
+    }
+
+    /**
+     * 添加字典编码的字符串列，数字和布尔值按原文保存
+     *
+     * @param path 字段路径
+     *
+     * @return 当前实例
+     */
+    public JsonColumnReader stringColumn(String path) {
+        return addColumn(path, STRING);
+    }
+
+    /**
+     * 设置预计行数，作为列数组的初始容量，减少扩容复制
+     *
+     * @param rows 预计行数
+     *
+     * @return 当前实例
+     */
+    public JsonColumnReader expectedSize(int rows) {
+        this.expectedSize = Math.max(rows, 16);
+        return this;
+    }
+
+    private JsonColumnReader addColumn(String path, int kind) {
+        if (StrUtil.isBlank(path)) {
+            throw new IllegalArgumentException("列路径不能为空");
+        }
+        if (names.contains(path)) {
+            throw new IllegalArgumentException("列已存在: " + path);
+        }
+        segments(path);
+        names.add(path);
+        kinds.add(kind);
+        return this;
+    }
+
+    /**
+     * 读取 JSON 文件，GZIP/DEFLATE 压缩文件按文件头自动识别
+     *
+     * @param file JSON 文件
+     *
+     * @return 列式数据，读取失败时返回 null
+     */
+    public JsonColumns read(File file) {
+        if (file == null || !file.exists()) {
+            log.warn("参数校验失败：file为{}", file);
+            return null;
+        }
+        try (JsonParser parser = jsonFactory.createParser(compression.open(file))) {
+            return read(parser);
+        } catch (IOException e) {
+            log.error("列式读取 JSON 文件失败，文件: {}, 路径: {} {}", file, jsonPtrExpr, e);
+            return null;
+        }
+    }
+
+    /**
+     * 读取 JSON 字符串
+     *
+     * @param json JSON 字符串
+     *
+     * @return 列式数据，读取失败时返回 null
+     */
+    public JsonColumns read(String json) {
+        if (StrUtil.isBlank(json)) {
+            return null;
+        }
+        try (JsonParser parser = jsonFactory.createParser(json)) {
+            return read(parser);
+        } catch (IOException e) {
+            log.error("列式读取 JSON 字符串失败，路径: {} {}", jsonPtrExpr, e);
+            return null;
+        }
+    }
+
+    /**
+     * 读取输入流，压缩流按文件头自动识别，不关闭输入流
+     *
+     * @param in 输入流
+     *
+     * @return 列式数据，读取失败时返回 null
+     */
+    public JsonColumns read(InputStream in) {
+        if (in == null) {
+            log.warn("参数校验失败：in为null");
+            return null;
+        }
+        try (JsonParser parser = jsonFactory.createParser(compression.decompress(in, false))) {
+            return read(parser);
+        } catch (IOException e) {
+            log.error("列式读取 JSON 输入流失败，路径: {} {}", jsonPtrExpr, e);
+            return null;
+        }
+    }
+
+    /**
+     * 从解析器读取，读到数组结尾即返回，不读取文档的其余部分
+     *
+     * @param parser 解析器
+     *
+     * @return 列式数据，路径不存在或不是数组时返回 0 行
+     *
+     * @throws IOException 解析失败
+     */
+    public JsonColumns read(JsonParser parser) throws IOException {
+        JsonColumns result = new JsonColumns();
+        Node root = new Node();
+        for (int i = 0; i < names.size(); i++) {
+            JsonColumns.Column column = newColumn(kinds.get(i));
+            result.add(names.get(i), column);
+            Node node = root;
+            for (String segment : segments(names.get(i))) {
+                node = node.children.computeIfAbsent(segment, k -> new Node());
+            }
+            node.column = column;
+            node.kind = kinds.get(i);
+        }
+
+        if (parser.currentToken() == null) {
+            parser.nextToken();
+        }
+        if (!seek(parser)) {
+            log.warn("路径不存在或不是数组: {}", jsonPtrExpr);
+            result.finish();
+            return result;
+        }
+        // 数字字符串的解析结果，每次读取各自持有，读取器可被多个线程同时使用
+        long[] scratch = new long[1];
+        int row = 0;
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            if (parser.currentToken() == JsonToken.START_OBJECT) {
+                readObject(parser, root, row, scratch);
+            } else {
+                // 非对象元素记为全 null 的一行，保持行号与数组下标一致
+                parser.skipChildren();
+            }
+            result.endRow();
+            row++;
+        }
+        result.finish();
+        return result;
+    }
+
+    private JsonColumns.Column newColumn(int kind) {
+        switch (kind) {
+            case LONG:
+                return new JsonColumns.LongColumn(expectedSize);
+            case INT:
+                return new JsonColumns.IntColumn(expectedSize);
+            case DOUBLE:
+                return new JsonColumns.DoubleColumn(expectedSize);
+            default:
+                return new JsonColumns.StringColumn(expectedSize);
+        }
+    }
+
+    /**
+     * 跳转到数组路径，成功时解析器位于数组的 START_ARRAY
+     */
+    private boolean seek(JsonParser parser) throws IOException {
+        for (String segment : arrayPath) {
+            JsonToken t = parser.currentToken();
+            boolean found = false;
+            if (t == JsonToken.START_OBJECT) {
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String name = parser.currentName();
+                    parser.nextToken();
+                    if (name.equals(segment)) {
+                        found = true;
+                        break;
+                    }
+                    parser.skipChildren();
+                }
+            } else if (t == JsonToken.START_ARRAY && isIndex(segment)) {
+                int index = Integer.parseInt(segment);
+                for (int i = 0; parser.nextToken() != JsonToken.END_ARRAY; i++) {
+                    if (i == index) {
+                        found = true;
+                        break;
+                    }
+                    parser.skipChildren();
+                }
+            }
+            if (!found) {
+                return false;
+            }
+        }
+        return parser.currentToken() == JsonToken.START_ARRAY;
+    }
+
+    private void readObject(JsonParser parser, Node node, int row, long[] scratch) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            Node child = node.children.get(parser.currentName());
+            JsonToken t = parser.nextToken();
+            if (child == null) {
+                parser.skipChildren();
+                continue;
+            }
+            // 同一行重复出现的字段只取第一个
+            if (child.column != null && child.column.size == row) {
+                readValue(parser, t, child, scratch);
+            }
+            if (t == JsonToken.START_OBJECT && !child.children.isEmpty()) {
+                readObject(parser, child, row, scratch);
+            } else {
+                parser.skipChildren();
+            }
+        }
+    }
+
+    private void readValue(JsonParser parser, JsonToken t, Node node, long[] scratch) throws IOException {
+        boolean ok = false;
+        switch (node.kind) {
+            case LONG: {
+                JsonColumns.LongColumn column = (JsonColumns.LongColumn) node.column;
+                if (t == JsonToken.VALUE_NUMBER_INT && parser.getNumberType() != JsonParser.NumberType.BIG_INTEGER) {
+                    column.append(parser.getLongValue());
+                    ok = true;
+                } else if (t == JsonToken.VALUE_STRING
+                        && parseLong(parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength(), scratch)) {
+                    column.append(scratch[0]);
+                    ok = true;
+                }
+                break;
+            }
+            case INT: {
+                JsonColumns.IntColumn column = (JsonColumns.IntColumn) node.column;
+                if (t == JsonToken.VALUE_NUMBER_INT && parser.getNumberType() == JsonParser.NumberType.INT) {
+                    column.append(parser.getIntValue());
+                    ok = true;
+                } else if (t == JsonToken.VALUE_STRING
+                        && parseLong(parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength(), scratch)
+                        && scratch[0] >= Integer.MIN_VALUE && scratch[0] <= Integer.MAX_VALUE) {
+                    column.append((int) scratch[0]);
+                    ok = true;
+                }
+                break;
+            }
+            case DOUBLE: {
+                JsonColumns.DoubleColumn column = (JsonColumns.DoubleColumn) node.column;
+                if (t == JsonToken.VALUE_NUMBER_INT || t == JsonToken.VALUE_NUMBER_FLOAT) {
+                    column.append(parser.getDoubleValue());
+                    ok = true;
+                } else if (t == JsonToken.VALUE_STRING) {
+                    try {
+                        column.append(Double.parseDouble(parser.getText()));
+                        ok = true;
+                    } catch (NumberFormatException e) {
+                        // 无法转换记为 null
+                    }
+                }
+                break;
+            }
+            default: {
+                if (t.isScalarValue() && t != JsonToken.VALUE_NULL && t != JsonToken.VALUE_EMBEDDED_OBJECT) {
+                    ((JsonColumns.StringColumn) node.column).append(
+                            parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength());
+                    ok = true;
+                }
+            }
+        }
+        if (!ok) {
+            node.column.appendNull();
+        }
+    }
+
+    /**
+     * 从字符缓冲区解析十进制整数，不创建 String
+     *
+     * @param out 解析结果
+     *
+     * @return 是否为合法的 long
+     */
+    private static boolean parseLong(char[] buf, int offset, int length, long[] out) {
+        if (length == 0 || length > 20) {
+            return false;
+        }
+        int i = offset;
+        int end = offset + length;
+        boolean negative = buf[i] == '-';
+        if (negative && ++i == end) {
+            return false;
+        }
+        // 按负数累加，避免 Long.MIN_VALUE 溢出
+        long value = 0;
+        for (; i < end; i++) {
+            char c = buf[i];
+            if (c < '0' || c > '9') {
+                return false;
+            }
+            int digit = c - '0';
+            if (value < (Long.MIN_VALUE + digit) / 10) {
+                return false;
+            }
+            value = value * 10 - digit;
+        }
+        if (!negative) {
+            if (value == Long.MIN_VALUE) {
+                return false;
+            }
+            value = -value;
+        }
+        out[0] = value;
+        return true;
+    }
+
+    private static boolean isIndex(String segment) {
+        if (segment.isEmpty() || segment.length() > 9) {
+            return false;
+        }
+        for (int i = 0; i < segment.length(); i++) {
+            if (!Character.isDigit(segment.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 将 JSON Pointer 拆分为各段，开头的 / 可以省略
+     */
+    private static List<String> segments(String path) {
+        List<String> segments = new ArrayList<>();
+        if (path.isEmpty() || path.equals("/")) {
+            return segments;
+        }
+        JsonPointer pointer = JsonPointer.compile(path.startsWith("/") ? path : "/" + path);
+        for (; !pointer.matches(); pointer = pointer.tail()) {
+            segments.add(pointer.getMatchingProperty());
+        }
+        return segments;
+    }
+
+    /**
+     * 列路径前缀树节点
+     */
+    private static class Node {
+        private final Map<String, Node> children = new HashMap<>();
+        private JsonColumns.Column column;
+        private int kind;
+    }
+}
@@ -0,0 +1,397 @@
+package sunyu.util;
+
+import cn.hutool.log.Log;
+import cn.hutool.log.LogFactory;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 列式读取结果
+ * <p>
+ * 由 {@link JsonColumnReader} 生成，每列保存为基本类型数组：long[]、int[]、double[]，
+ * 字符串列按字典编码保存为 int[] 编码和去重后的 String[] 字典。缺失、null 或无法转换的值记录在每列的 null 位图中，
+ * 对应位置的数组元素为 0（字符串列编码为 -1）。
+ * </p>
+ *
+ * @author SunYu
+ */
+public class JsonColumns {
+    private final Log log = LogFactory.get();
+
+    private final Map<String, Column> columns = new LinkedHashMap<>();
+    private int size;
+
+    JsonColumns() {
+    }
+
+    /**
+     * 获取行数，即数组元素个数
+     *
+     * @return 行数
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * 获取 long 列
+     *
+     * @param name 列名，即添加列时的路径
+     *
+     * @return 列数据，长度等于行数；列不存在或类型不符时返回 null
+     */
+    public long[] getLongs(String name) {
+        LongColumn column = column(name, LongColumn.class);
+        return column == null ? null : column.values;
+    }
+
+    /**
+     * 获取 int 列
+     *
+     * @param name 列名
+     *
+     * @return 列数据，长度等于行数；列不存在或类型不符时返回 null
+     */
+    public int[] getInts(String name) {
+        IntColumn column = column(name, IntColumn.class);
+        return column == null ? null : column.values;
+    }
+
+    /**
+     * 获取 double 列
+     *
+     * @param name 列名
+     *
+     * @return 列数据，长度等于行数；列不存在或类型不符时返回 null
+     */
+    public double[] getDoubles(String name) {
+        DoubleColumn column = column(name, DoubleColumn.class);
+        return column == null ? null : column.values;
+    }
+
+    /**
+     * 获取字符串列的字典编码
+     *
+     * @param name 列名
+     *
+     * @return 每行的字典下标，null 为 -1；列不存在或类型不符时返回 null
+     */
+    public int[] getStringCodes(String name) {
+        StringColumn column = column(name, StringColumn.class);
+        return column == null ? null : column.codes;
+    }
+
+    /**
+     * 获取字符串列的字典
+     *
+     * @param name 列名
+     *
+     * @return 去重后的字符串，按首次出现顺序；列不存在或类型不符时返回 null
+     */
+    public String[] getDictionary(String name) {
+        StringColumn column = column(name, StringColumn.class);
+        return column == null ? null : column.dictionary;
+    }
+
+    /**
+     * 获取字符串列中的一个值
+     *
+     * @param name 列名
+     * @param row  行号
+     *
+     * @return 字符串，null 或列不存在时返回 null
+     */
+    public String getString(String name, int row) {
+        StringColumn column = column(name, StringColumn.class);
+        if (column == null || row < 0 || row >= size) {
+            return null;
+        }
+        int code = column.codes[row];
+        return code < 0 ? null : column.dictionary[code];
+    }
+
+    /**
+     * 判断值是否为 null（包括字段缺失和无法转换为列类型的值）
+     *
+     * @param name 列名
+     * @param row  行号
+     *
+     * @return 是否为 null，列不存在时返回 true
+     */
+    public boolean isNull(String name, int row) {
+        Column column = columns.get(name);
+        return column == null || column.nulls.get(row);
+    }
+
+    /**
+     * 获取列的 null 位图
+     *
+     * @param name 列名
+     *
+     * @return null 位图副本，列不存在时返回 null
+     */
+    public BitSet getNulls(String name) {
+        Column column = columns.get(name);
+        if (column == null) {
+            log.warn("列不存在: {}", name);
+            return null;
+        }
+        return (BitSet) column.nulls.clone();
+    }
+
+    void add(String name, Column column) {
+        columns.put(name, column);
+    }
+
+    /**
+     * 一行读取结束，未出现的列补 null
+     */
+    void endRow() {
+        size++;
+        for (Column column : columns.values()) {
+            if (column.size < size) {
+                column.appendNull();
+            }
+        }
+    }
+
+    /**
+     * 读取结束，数组截断到行数
+     */
+    void finish() {
+        for (Column column : columns.values()) {
+            column.trim();
+        }
+    }
+
+    private <C extends Column> C column(String name, Class<C> type) {
+        Column column = columns.get(name);
+        if (column == null) {
+            log.warn("列不存在: {}", name);
+            return null;
+        }
+        if (!type.isInstance(column)) {
+            log.warn("列 {} 的类型为 {}，不是 {}", name, column.getClass().getSimpleName(), type.getSimpleName());
+            return null;
+        }
+        return type.cast(column);
+    }
+
+    /**
+     * 列基类，按行追加
+     */
+    abstract static class Column {
+        final BitSet nulls = new BitSet();
+        int size;
+
+        void appendNull() {
+            ensureCapacity(size + 1);
+            nulls.set(size);
+            size++;
+        }
+
+        abstract void ensureCapacity(int capacity);
+
+        abstract void trim();
+
+        static int grow(int length, int capacity) {
+            return Math.max(capacity, length + (length >> 1) + 16);
+        }
+    }
+
+    static final class LongColumn extends Column {
+        long[] values;
+
+        LongColumn(int capacity) {
+            values = new long[capacity];
+        }
+
+        void append(long value) {
+            ensureCapacity(size + 1);
+            values[size++] = value;
+        }
+
+        @Override
+        void ensureCapacity(int capacity) {
+            if (capacity > values.length) {
+                values = Arrays.copyOf(values, grow(values.length, capacity));
+            }
+        }
+
+        @Override
+        void trim() {
+            if (values.length != size) {
+                values = Arrays.copyOf(values, size);
+            }
+        }
+    }
+
+    static final class IntColumn extends Column {
+        int[] values;
+
+        IntColumn(int capacity) {
+            values = new int[capacity];
+        }
+
+        void append(int value) {
+            ensureCapacity(size + 1);
+            values[size++] = value;
+        }
+
+        @Override
+        void ensureCapacity(int capacity) {
+            if (capacity > values.length) {
+                values = Arrays.copyOf(values, grow(values.length, capacity));
+            }
+        }
+
+        @Override
+        void trim() {
+            if (values.length != size) {
+                values = Arrays.copyOf(values, size);
+            }
+        }
+    }
+
+    static final class DoubleColumn extends Column {
+        double[] values;
+
+        DoubleColumn(int capacity) {
+            values = new double[capacity];
+        }
+
+        void append(double value) {
+            ensureCapacity(size + 1);
+            values[size++] = value;
+        }
+
+        @Override
+        void ensureCapacity(int capacity) {
+            if (capacity > values.length) {
+                values = Arrays.copyOf(values, grow(values.length, capacity));
+            }
+        }
+
+        @Override
+        void trim() {
+            if (values.length != size) {
+                values = Arrays.copyOf(values, size);
+            }
+        }
+    }
+
+    /**
+     * 字典编码的字符串列
+     * <p>
+     * 字典使用开放寻址哈希表，直接按解析器的字符缓冲区查找，重复出现的字符串不会再创建 String 对象。
+     * </p>
+     */
+    static final class StringColumn extends Column {
+        int[] codes;
+        String[] dictionary = new String[16];
+        int dictionarySize;
+
+        /**
+         * 哈希表，保存字典下标 + 1，0 表示空位
+         */
+        private int[] table = new int[32];
+        private int[] hashes = new int[16];
+
+        StringColumn(int capacity) {
+            codes = new int[capacity];
+        }
+
+        @Override
+        void appendNull() {
+            ensureCapacity(size + 1);
+            codes[size] = -1;
+            nulls.set(size);
+            size++;
+        }
+
+        void append(char[] buf, int offset, int length) {
+            ensureCapacity(size + 1);
+            codes[size++] = code(buf, offset, length);
+        }
+
+        private int code(char[] buf, int offset, int length) {
+            int hash = 0;
+            for (int i = 0; i < length; i++) {
+                hash = 31 * hash + buf[offset + i];
+            }
+            int mask = table.length - 1;
+            for (int slot = mix(hash) & mask; ; slot = (slot + 1) & mask) {
+                int entry = table[slot];
+                if (entry == 0) {
+                    return insert(slot, hash, new String(buf, offset, length));
+                }
+                int code = entry - 1;
+                if (hashes[code] == hash && matches(dictionary[code], buf, offset, length)) {
+                    return code;
+                }
+            }
+        }
+
+        private int insert(int slot, int hash, String value) {
+            if (dictionarySize == dictionary.length) {
+                dictionary = Arrays.copyOf(dictionary, dictionarySize * 2);
+                hashes = Arrays.copyOf(hashes, dictionarySize * 2);
+            }
+            int code = dictionarySize++;
+            dictionary[code] = value;
+            hashes[code] = hash;
+            table[slot] = code + 1;
+            // 负载因子超过 0.5 时扩容重建
+            if (dictionarySize * 2 > table.length) {
+                table = new int[table.length * 2];
+                int mask = table.length - 1;
+                for (int c = 0; c < dictionarySize; c++) {
+                    int s = mix(hashes[c]) & mask;
+                    while (table[s] != 0) {
+                        s = (s + 1) & mask;
+                    }
+                    table[s] = c + 1;
+                }
+            }
+            return code;
+        }
+
+        private static int mix(int hash) {
+            return hash ^ (hash >>> 16);
+        }
+
+        private static boolean matches(String s, char[] buf, int offset, int length) {
+            if (s.length() != length) {
+                return false;
+            }
+            for (int i = 0; i < length; i++) {
+                if (s.charAt(i) != buf[offset + i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        void ensureCapacity(int capacity) {
+            if (capacity > codes.length) {
+                codes = Arrays.copyOf(codes, grow(codes.length, capacity));
+            }
+        }
+
+        @Override
+        void trim() {
+            if (codes.length != size) {
+                codes = Arrays.copyOf(codes, size);
+            }
+            if (dictionary.length != dictionarySize) {
+                dictionary = Arrays.copyOf(dictionary, dictionarySize);
+            }
+            table = null;
+            hashes = null;
+        }
+    }
+}
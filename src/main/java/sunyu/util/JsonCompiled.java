@@ -0,0 +1,29 @@
+package sunyu.util;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 标记需要在编译期生成 JSON 处理器的类
+ * <p>
+ * 配置 {@link JsonCompiledProcessor} 后，编译时为标记的类生成专用的 JsonSerializer/JsonDeserializer，
+ * 按 getter/setter 或 public 字段直接读写属性，不经过反射和 BeanSerializer 的属性分派。生成的处理器遵循 JsonUtil 的约定：
+ * 忽略 null 属性、Long 输出为字符串，日期时间等其它类型交给 ObjectMapper 中已注册的处理器。
+ * JsonUtil 构建时通过 ServiceLoader 自动注册，可通过 {@link JsonUtil.Builder#disableCompiledCodecs()} 关闭。
+ * 生成的处理器只用于标记的类本身，子类以及类或父类配置了混入时使用 Jackson 标准处理器。
+ * </p>
+ * <p>
+ * 要求：public 的顶层类或静态内部类，非抽象、无泛型参数，有 public 无参构造函数；
+ * 属性仅支持 public getter/setter 和 public 字段（final 字段需要 setter），除 @JsonIgnore、@JsonProperty 外不支持其它 Jackson 注解。
+ * </p>
+ *
+ * @author SunYu
+ */
+@Documented
+@Retention(RetentionPolicy.CLASS)
+@Target(ElementType.TYPE)
+public @interface JsonCompiled {
+}
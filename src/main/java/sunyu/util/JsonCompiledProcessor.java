@@ -0,0 +1,582 @@
+package sunyu.util;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.ExecutableType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardLocation;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * {@link JsonCompiled} 注解处理器
+ * <p>
+ * 为标记的类生成 {@link CompiledJsonCodec} 实现（类名为外层类名与类名以 _ 连接再加 JsonCodec，如 Order_ItemJsonCodec），
+ * 并写入 META-INF/services/sunyu.util.CompiledJsonCodec。处理器需要显式开启，在使用方的 maven-compiler-plugin 中配置：
+ * </p>
+ * <pre>
+ * &lt;annotationProcessorPaths&gt;
+ *     &lt;path&gt;
+ *         &lt;groupId&gt;sunyu.util&lt;/groupId&gt;
+ *         &lt;artifactId&gt;util-jackson&lt;/artifactId&gt;
+ *         &lt;version&gt;${util-jackson.version}&lt;/version&gt;
+ *     &lt;/path&gt;
+ * &lt;/annotationProcessorPaths&gt;
+ * &lt;annotationProcessors&gt;
+ *     &lt;annotationProcessor&gt;sunyu.util.JsonCompiledProcessor&lt;/annotationProcessor&gt;
+ * &lt;/annotationProcessors&gt;
+ * </pre>
+ * <p>
+ * 属性顺序与 Jackson 默认一致：有同名字段的属性按字段声明顺序（父类在前），其余按方法顺序，改名的属性排在最后。
+ * 处理器只依赖 JDK，生成的代码依赖 jackson-databind 和本工具包。
+ * </p>
+ *
+ * @author SunYu
+ */
+@SupportedAnnotationTypes("sunyu.util.JsonCompiled")
+public class JsonCompiledProcessor extends AbstractProcessor {
+    private static final String SERVICE_FILE = "META-INF/services/" + CompiledJsonCodec.class.getName();
+
+    private static final String JSON_IGNORE = "com.fasterxml.jackson.annotation.JsonIgnore";
+    private static final String JSON_PROPERTY = "com.fasterxml.jackson.annotation.JsonProperty";
+
+    /**
+     * 本次编译生成的处理器类名
+     */
+    private final Set<String> codecs = new TreeSet<>();
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        for (Element element : roundEnv.getElementsAnnotatedWith(JsonCompiled.class)) {
+            if (element.getKind() != ElementKind.CLASS) {
+                error(element, "@JsonCompiled 只能用于类");
+                continue;
+            }
+            TypeElement type = (TypeElement) element;
+            if (!validate(type)) {
+                continue;
+            }
+            List<Property> properties = collectProperties(type);
+            if (properties == null) {
+                continue;
+            }
+            try {
+                codecs.add(generate(type, properties));
+            } catch (IOException e) {
+                error(type, "生成 JSON 处理器失败 " + e.getMessage());
+            }
+        }
+        if (roundEnv.processingOver() && !codecs.isEmpty()) {
+            writeServiceFile();
+        }
+        return true;
+    }
+
+    /**
+     * 校验类是否满足生成条件
+     */
+    private boolean validate(TypeElement type) {
+        Set<Modifier> modifiers = type.getModifiers();
+        if (!modifiers.contains(Modifier.PUBLIC) || modifiers.contains(Modifier.ABSTRACT)) {
+            error(type, "@JsonCompiled 类必须是 public 且非抽象");
+            return false;
+        }
+        if (!type.getTypeParameters().isEmpty()) {
+            error(type, "@JsonCompiled 类不能有泛型参数");
+            return false;
+        }
+        for (Element e = type; e.getEnclosingElement().getKind() != ElementKind.PACKAGE; e = e.getEnclosingElement()) {
+            if (!e.getModifiers().contains(Modifier.STATIC) || !e.getEnclosingElement().getModifiers().contains(Modifier.PUBLIC)) {
+                error(type, "@JsonCompiled 内部类必须是 public static，且外层类为 public");
+                return false;
+            }
+        }
+        for (ExecutableElement constructor : ElementFilter.constructorsIn(type.getEnclosedElements())) {
+            if (constructor.getParameters().isEmpty() && constructor.getModifiers().contains(Modifier.PUBLIC)) {
+                return true;
+            }
+        }
+        error(type, "@JsonCompiled 类必须有 public 无参构造函数");
+        return false;
+    }
+
+    /**
+     * 收集 getter/setter 和 public 字段属性，按 Jackson 默认顺序排列
+     *
+     * @return 属性列表，类不满足条件时返回 null
+     */
+    private List<Property> collectProperties(TypeElement type) {
+        if (hasJacksonAnnotation(type, null)) {
+            error(type, "@JsonCompiled 类不支持类级别的 Jackson 注解");
+            return null;
+        }
+
+        // 字段按声明顺序，父类在前
+        List<TypeElement> hierarchy = new ArrayList<>();
+        for (TypeElement t = type; t != null && !t.getQualifiedName().contentEquals("java.lang.Object"); t = superclass(t)) {
+            hierarchy.add(0, t);
+        }
+        Map<String, VariableElement> fields = new LinkedHashMap<>();
+        for (TypeElement t : hierarchy) {
+            for (VariableElement field : ElementFilter.fieldsIn(t.getEnclosedElements())) {
+                if (!field.getModifiers().contains(Modifier.STATIC)) {
+                    fields.put(field.getSimpleName().toString(), field);
+                }
+            }
+        }
+        DeclaredType declaredType = (DeclaredType) type.asType();
+        Map<String, Property> properties = new LinkedHashMap<>();
+        for (VariableElement field : fields.values()) {
+            Property property = new Property(field.getSimpleName().toString());
+            // 与 Jackson 默认可见性一致：public 字段没有 getter/setter 时直接读写，transient 字段不作为属性
+            Set<Modifier> modifiers = field.getModifiers();
+            if (modifiers.contains(Modifier.PUBLIC) && !modifiers.contains(Modifier.TRANSIENT)) {
+                property.field = field;
+                property.fieldType = processingEnv.getTypeUtils().asMemberOf(declaredType, field);
+            }
+            properties.put(property.implied, property);
+        }
+
+        for (ExecutableElement method : ElementFilter.methodsIn(processingEnv.getElementUtils().getAllMembers(type))) {
+            Set<Modifier> modifiers = method.getModifiers();
+            if (!modifiers.contains(Modifier.PUBLIC) || modifiers.contains(Modifier.STATIC)
+                    || ((TypeElement) method.getEnclosingElement()).getQualifiedName().contentEquals("java.lang.Object")) {
+                continue;
+            }
+            ExecutableType methodType = (ExecutableType) processingEnv.getTypeUtils().asMemberOf(declaredType, method);
+            String name = method.getSimpleName().toString();
+            if (method.getParameters().isEmpty() && methodType.getReturnType().getKind() != TypeKind.VOID) {
+                String implied = null;
+                if (name.startsWith("get") && name.length() > 3) {
+                    implied = mangle(name.substring(3));
+                } else if (name.startsWith("is") && name.length() > 2 && methodType.getReturnType().getKind() == TypeKind.BOOLEAN) {
+                    implied = mangle(name.substring(2));
+                }
+                if (implied != null) {
+                    Property property = properties.computeIfAbsent(implied, Property::new);
+                    property.getter = method;
+                    property.getterType = methodType.getReturnType();
+                }
+            } else if (method.getParameters().size() == 1 && name.startsWith("set") && name.length() > 3) {
+                Property property = properties.computeIfAbsent(mangle(name.substring(3)), Property::new);
+                property.setter = method;
+                property.setterType = methodType.getParameterTypes().get(0);
+            }
+        }
+
+        List<Property> result = new ArrayList<>();
+        for (Property property : properties.values()) {
+            if (property.getter == null && property.setter == null && property.field == null) {
+                continue;
+            }
+            List<Element> accessors = new ArrayList<>();
+            if (fields.containsKey(property.implied)) {
+                accessors.add(fields.get(property.implied));
+            }
+            if (property.getter != null) {
+                accessors.add(property.getter);
+            }
+            if (property.setter != null) {
+                accessors.add(property.setter);
+            }
+            boolean ignored = false;
+            for (Element accessor : accessors) {
+                if (hasJacksonAnnotation(accessor, property)) {
+                    error(accessor, "@JsonCompiled 类的属性仅支持 @JsonIgnore、@JsonProperty 注解");
+                    return null;
+                }
+                for (AnnotationMirror mirror : accessor.getAnnotationMirrors()) {
+                    String annotation = ((TypeElement) mirror.getAnnotationType().asElement()).getQualifiedName().toString();
+                    if (annotation.equals(JSON_IGNORE) && !Boolean.FALSE.equals(annotationValue(mirror, "value"))) {
+                        ignored = true;
+                    } else if (annotation.equals(JSON_PROPERTY)) {
+                        Object value = annotationValue(mirror, "value");
+                        if (value != null && !value.toString().isEmpty()) {
+                            property.name = value.toString();
+                        }
+                    }
+                }
+            }
+            if (ignored) {
+                continue;
+            }
+            if (property.setter == null && property.field != null && property.field.getModifiers().contains(Modifier.FINAL)) {
+                error(property.field, "@JsonCompiled 类的 public final 字段需要提供 setter 或标记 @JsonIgnore");
+                return null;
+            }
+            result.add(property);
+        }
+        // 与 Jackson 一致，通过 @JsonProperty 改名的属性排在最后
+        List<Property> renamed = new ArrayList<>();
+        for (Property property : result) {
+            if (!property.name.equals(property.implied)) {
+                renamed.add(property);
+            }
+        }
+        result.removeAll(renamed);
+        result.addAll(renamed);
+        return result;
+    }
+
+    /**
+     * 生成处理器源码
+     *
+     * @return 生成的类全名
+     */
+    private String generate(TypeElement type, List<Property> properties) throws IOException {
+        PackageElement pkg = processingEnv.getElementUtils().getPackageOf(type);
+        String packageName = pkg.isUnnamed() ? "" : pkg.getQualifiedName().toString();
+        StringBuilder simpleName = new StringBuilder(type.getSimpleName());
+        for (Element e = type.getEnclosingElement(); e.getKind() != ElementKind.PACKAGE; e = e.getEnclosingElement()) {
+            simpleName.insert(0, e.getSimpleName() + "_");
+        }
+        String codecName = simpleName + "JsonCodec";
+        String qualifiedName = packageName.isEmpty() ? codecName : packageName + "." + codecName;
+        String bean = type.getQualifiedName().toString();
+
+        StringBuilder src = new StringBuilder();
+        if (!packageName.isEmpty()) {
+            src.append("package ").append(packageName).append(";\n\n");
+        }
+        src.append("/**\n * {@link ").append(bean).append("} 的 JSON 处理器，由 JsonCompiledProcessor 生成，请勿修改\n */\n");
+        src.append("public final class ").append(codecName).append(" implements sunyu.util.CompiledJsonCodec<").append(bean).append("> {\n");
+        src.append("    @Override\n    public Class<").append(bean).append("> type() {\n        return ").append(bean).append(".class;\n    }\n\n");
+        src.append("    @Override\n    public com.fasterxml.jackson.databind.JsonSerializer<").append(bean).append("> serializer() {\n        return new Serializer();\n    }\n\n");
+        src.append("    @Override\n    public com.fasterxml.jackson.databind.JsonDeserializer<").append(bean).append("> deserializer() {\n        return new Deserializer();\n    }\n\n");
+
+        // 序列化器
+        src.append("    static final class Serializer extends sunyu.util.CompiledJsonSerializer<").append(bean).append("> {\n");
+        src.append("        private static final long serialVersionUID = 1L;\n\n");
+        int index = 0;
+        for (Property property : properties) {
+            if (property.readable()) {
+                property.nameConstant = "NAME_" + index++;
+                src.append("        private static final com.fasterxml.jackson.core.io.SerializedString ").append(property.nameConstant)
+                        .append(" = new com.fasterxml.jackson.core.io.SerializedString(\"").append(escape(property.name)).append("\");\n");
+            }
+        }
+        src.append("\n        Serializer() {\n            super(").append(bean).append(".class);\n        }\n\n");
+        src.append("        @Override\n        protected void serializeFields(").append(bean)
+                .append(" bean, com.fasterxml.jackson.core.JsonGenerator gen, com.fasterxml.jackson.databind.SerializerProvider provider)\n")
+                .append("                throws java.io.IOException {\n");
+        for (Property property : properties) {
+            if (property.readable()) {
+                writeSerializeField(src, property);
+            }
+        }
+        src.append("        }\n    }\n\n");
+
+        // 反序列化器
+        List<String> delegateTypes = new ArrayList<>();
+        StringBuilder cases = new StringBuilder();
+        for (Property property : properties) {
+            if (property.writable()) {
+                writeDeserializeCase(cases, property, delegateTypes);
+            }
+        }
+        src.append("    static final class Deserializer extends sunyu.util.CompiledJsonDeserializer<").append(bean).append("> {\n");
+        src.append("        private static final long serialVersionUID = 1L;\n\n");
+        src.append("        Deserializer() {\n            super(").append(bean).append(".class");
+        for (String delegateType : delegateTypes) {
+            src.append(",\n                    new com.fasterxml.jackson.core.type.TypeReference<").append(delegateType).append(">() {\n                    }");
+        }
+        src.append(");\n        }\n\n");
+        src.append("        @Override\n        protected ").append(bean).append(" createBean() {\n            return new ").append(bean).append("();\n        }\n\n");
+        src.append("        @Override\n        protected boolean readField(").append(bean)
+                .append(" bean, String name, com.fasterxml.jackson.core.JsonParser p,\n")
+                .append("                                    com.fasterxml.jackson.databind.DeserializationContext ctxt) throws java.io.IOException {\n");
+        src.append("            switch (name) {\n").append(cases);
+        src.append("                default:\n                    return false;\n            }\n        }\n    }\n}\n");
+
+        JavaFileObject file = processingEnv.getFiler().createSourceFile(qualifiedName, type);
+        try (Writer writer = file.openWriter()) {
+            writer.write(src.toString());
+        }
+        return qualifiedName;
+    }
+
+    private void writeSerializeField(StringBuilder src, Property property) {
+        TypeMirror type = property.getter != null ? property.getterType : property.fieldType;
+        String getter = property.getter != null ? "bean." + property.getter.getSimpleName() + "()" : "bean." + property.field.getSimpleName();
+        String name = property.nameConstant;
+        if (type.getKind().isPrimitive()) {
+            src.append("            gen.writeFieldName(").append(name).append(");\n");
+            switch (type.getKind()) {
+                case BOOLEAN:
+                    src.append("            gen.writeBoolean(").append(getter).append(");\n");
+                    break;
+                case CHAR:
+                    src.append("            gen.writeString(String.valueOf(").append(getter).append("));\n");
+                    break;
+                default:
+                    // Long 转字符串只对包装类型生效，long 与 Jackson 默认行为一致输出数字
+                    src.append("            gen.writeNumber(").append(getter).append(");\n");
+            }
+            return;
+        }
+        src.append("            {\n                ").append(sourceType(type)).append(" value = ").append(getter).append(";\n");
+        src.append("                if (value != null) {\n");
+        switch (boxedKind(type)) {
+            case "java.lang.String":
+                src.append("                    gen.writeFieldName(").append(name).append(");\n                    gen.writeString(value);\n");
+                break;
+            case "java.lang.Long":
+                src.append("                    gen.writeFieldName(").append(name).append(");\n                    gen.writeString(value.toString());\n");
+                break;
+            case "java.lang.Integer":
+            case "java.lang.Double":
+            case "java.lang.Float":
+                src.append("                    gen.writeFieldName(").append(name).append(");\n                    gen.writeNumber(value);\n");
+                break;
+            case "java.lang.Boolean":
+                src.append("                    gen.writeFieldName(").append(name).append(");\n                    gen.writeBoolean(value);\n");
+                break;
+            default:
+                src.append("                    writeValue(").append(name).append(", value, gen, provider);\n");
+        }
+        src.append("                }\n            }\n");
+    }
+
+    private void writeDeserializeCase(StringBuilder cases, Property property, List<String> delegateTypes) {
+        TypeMirror type = property.setter != null ? property.setterType : property.fieldType;
+        String read;
+        switch (type.getKind()) {
+            case BOOLEAN:
+                read = "_parseBooleanPrimitive(p, ctxt)";
+                break;
+            case BYTE:
+                read = "_parseBytePrimitive(p, ctxt)";
+                break;
+            case SHORT:
+                read = "_parseShortPrimitive(p, ctxt)";
+                break;
+            case INT:
+                read = "_parseIntPrimitive(p, ctxt)";
+                break;
+            case LONG:
+                read = "_parseLongPrimitive(p, ctxt)";
+                break;
+            case FLOAT:
+                read = "_parseFloatPrimitive(p, ctxt)";
+                break;
+            case DOUBLE:
+                read = "_parseDoublePrimitive(p, ctxt)";
+                break;
+            default:
+                switch (boxedKind(type)) {
+                    case "java.lang.String":
+                        read = "readString(p, ctxt)";
+                        break;
+                    case "java.lang.Long":
+                        read = "_parseLong(p, ctxt, Long.class)";
+                        break;
+                    case "java.lang.Integer":
+                        read = "_parseInteger(p, ctxt, Integer.class)";
+                        break;
+                    case "java.lang.Boolean":
+                        read = "_parseBoolean(p, ctxt, Boolean.class)";
+                        break;
+                    default:
+                        String delegateType = sourceType(type.getKind().isPrimitive()
+                                ? processingEnv.getTypeUtils().boxedClass((javax.lang.model.type.PrimitiveType) type).asType()
+                                : type);
+                        read = "this.<" + delegateType + ">readValue(" + delegateTypes.size() + ", p, ctxt)";
+                        delegateTypes.add(delegateType);
+                }
+        }
+        cases.append("                case \"").append(escape(property.name)).append("\":\n");
+        if (property.setter != null) {
+            cases.append("                    bean.").append(property.setter.getSimpleName()).append("(").append(read).append(");\n");
+        } else {
+            cases.append("                    bean.").append(property.field.getSimpleName()).append(" = ").append(read).append(";\n");
+        }
+        cases.append("                    return true;\n");
+    }
+
+    /**
+     * 快速路径使用的类型名，其它类型返回空字符串
+     */
+    private String boxedKind(TypeMirror type) {
+        if (type.getKind() != TypeKind.DECLARED) {
+            return "";
+        }
+        String name = ((TypeElement) ((DeclaredType) type).asElement()).getQualifiedName().toString();
+        switch (name) {
+            case "java.lang.String":
+            case "java.lang.Long":
+            case "java.lang.Integer":
+            case "java.lang.Double":
+            case "java.lang.Float":
+            case "java.lang.Boolean":
+                return name;
+            default:
+                return "";
+        }
+    }
+
+    /**
+     * 类型在源码中的写法，去掉类型注解
+     */
+    private String sourceType(TypeMirror type) {
+        if (type.getKind() == TypeKind.TYPEVAR || type.getKind() == TypeKind.ERROR) {
+            return "java.lang.Object";
+        }
+        return type.toString().replaceAll("@\\S+\\s+", "");
+    }
+
+    /**
+     * 是否有除 @JsonIgnore、@JsonProperty 外的 Jackson 注解
+     */
+    private boolean hasJacksonAnnotation(Element element, Property property) {
+        for (AnnotationMirror mirror : element.getAnnotationMirrors()) {
+            String annotation = ((TypeElement) mirror.getAnnotationType().asElement()).getQualifiedName().toString();
+            if (property != null && (annotation.equals(JSON_IGNORE) || annotation.equals(JSON_PROPERTY))) {
+                continue;
+            }
+            if (annotation.startsWith("com.fasterxml.jackson.")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private Object annotationValue(AnnotationMirror mirror, String name) {
+        for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry : mirror.getElementValues().entrySet()) {
+            if (entry.getKey().getSimpleName().contentEquals(name)) {
+                return entry.getValue().getValue();
+            }
+        }
+        return null;
+    }
+
+    private TypeElement superclass(TypeElement type) {
+        TypeMirror superclass = type.getSuperclass();
+        return superclass.getKind() == TypeKind.DECLARED ? (TypeElement) ((DeclaredType) superclass).asElement() : null;
+    }
+
+    /**
+     * 与 Jackson 默认命名一致：去掉 get/set/is 前缀后，将开头连续的大写字母转为小写，如 getURL → url
+     */
+    private static String mangle(String name) {
+        StringBuilder sb = null;
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            char lower = Character.toLowerCase(c);
+            if (c == lower) {
+                break;
+            }
+            if (sb == null) {
+                sb = new StringBuilder(name);
+            }
+            sb.setCharAt(i, lower);
+        }
+        return sb == null ? name : sb.toString();
+    }
+
+    private static String escape(String s) {
+        return s.replace("\\", "\\\\").replace("\"", "\\\"");
+    }
+
+    /**
+     * 写入 ServiceLoader 登记文件，保留增量编译时已登记的处理器
+     */
+    private void writeServiceFile() {
+        Set<String> all = new TreeSet<>(codecs);
+        try {
+            FileObject existing = processingEnv.getFiler().getResource(StandardLocation.CLASS_OUTPUT, "", SERVICE_FILE);
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(existing.openInputStream(), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (!line.trim().isEmpty()) {
+                        all.add(line.trim());
+                    }
+                }
+            }
+        } catch (IOException e) {
+            // 首次编译时文件不存在
+        }
+        try {
+            FileObject file = processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "", SERVICE_FILE);
+            try (Writer writer = file.openWriter()) {
+                for (String codec : all) {
+                    writer.write(codec);
+                    writer.write("\n");
+                }
+            }
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "写入 " + SERVICE_FILE + " 失败 " + e.getMessage());
+        }
+    }
+
+    private void error(Element element, String message) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+    }
+
+    /**
+     * 属性信息
+     */
+    private static class Property {
+        /**
+         * 由字段名或 getter/setter 推断的名称
+         */
+        private final String implied;
+        /**
+         * 输出的字段名
+         */
+        private String name;
+        private ExecutableElement getter;
+        private TypeMirror getterType;
+        private ExecutableElement setter;
+        private TypeMirror setterType;
+        /**
+         * 没有 getter/setter 时直接读写的 public 字段
+         */
+        private VariableElement field;
+        private TypeMirror fieldType;
+        private String nameConstant;
+
+        private Property(String implied) {
+            this.implied = implied;
+            this.name = implied;
+        }
+
+        private boolean readable() {
+            return getter != null || field != null;
+        }
+
+        private boolean writable() {
+            return setter != null || field != null;
+        }
+    }
+}
@@ -0,0 +1,374 @@
+package sunyu.util;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.PushbackInputStream;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * 压缩输入输出
+ * <p>
+ * 读取时根据前两个字节识别 GZIP（1f 8b）和 zlib 格式的 DEFLATE，识别失败按普通 JSON 读取；
+ * JSON 文本的合法开头字符不会与这两种文件头冲突。写入文件时根据扩展名选择压缩格式。
+ * </p>
+ * <p>
+ * 开启流水线解压后，解压在独立线程中进行，解压结果按块放入有界队列，解析线程只做 JSON 解析，
+ * 多核下大文件的读取吞吐量接近两者中较慢的一方，而不是两者之和。
+ * </p>
+ *
+ * @author SunYu
+ */
+final class JsonCompression {
+    /**
+     * 默认压缩缓冲区大小，远大于 JDK 默认的 512 字节，减少 native 调用次数
+     */
+    static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * 默认流水线队列深度（块数）
+     */
+    static final int DEFAULT_PIPELINE_DEPTH = 4;
+
+    private final int bufferSize;
+    private final int pipelineDepth;
+
+    /**
+     * @param bufferSize    压缩缓冲区大小
+     * @param pipelineDepth 流水线队列深度，0 表示在解析线程中直接解压
+     */
+    JsonCompression(int bufferSize, int pipelineDepth) {
+        this.bufferSize = bufferSize;
+        this.pipelineDepth = pipelineDepth;
+    }
+
+    /**
+     * 打开文件，压缩文件返回解压流，普通文件直接返回文件流
+     *
+     * @param file 文件
+     *
+     * @return 输入流，由调用方关闭
+     *
+     * @throws IOException 打开或读取失败
+     */
+    InputStream open(File file) throws IOException {
+        FileInputStream in = new FileInputStream(file);
+        try {
+            int b0 = in.read();
+            int b1 = b0 < 0 ? -1 : in.read();
+            // 回到文件开头，普通文件不需要额外包装
+            in.getChannel().position(0);
+            CompressionType type = detect(b0, b1);
+            return type == CompressionType.NONE ? in : decompress(in, type);
+        } catch (IOException | RuntimeException e) {
+            in.close();
+            throw e;
+        }
+    }
+
+    /**
+     * 识别输入流的压缩格式，返回可直接解析的流
+     *
+     * @param in          输入流
+     * @param closeSource 关闭返回的流时是否关闭传入的流
+     *
+     * @return 输入流，由调用方关闭
+     *
+     * @throws IOException 读取失败
+     */
+    InputStream decompress(InputStream in, boolean closeSource) throws IOException {
+        InputStream source = closeSource ? in : new FilterInputStream(in) {
+            @Override
+            public void close() {
+                // 不关闭调用方的流
+            }
+        };
+        PushbackInputStream pushback = new PushbackInputStream(source, 2);
+        int b0 = pushback.read();
+        int b1 = b0 < 0 ? -1 : pushback.read();
+        if (b1 >= 0) {
+            pushback.unread(b1);
+        }
+        if (b0 >= 0) {
+            pushback.unread(b0);
+        }
+        CompressionType type = detect(b0, b1);
+        return type == CompressionType.NONE ? pushback : decompress(pushback, type);
+    }
+
+    /**
+     * 创建文件输出流，按扩展名决定是否压缩
+     *
+     * @param file 文件
+     * @param type 压缩格式，null 表示按扩展名选择
+     *
+     * @return 输出流，关闭时写出压缩尾部并关闭文件
+     *
+     * @throws IOException 创建失败
+     */
+    OutputStream create(File file, CompressionType type) throws IOException {
+        return compress(new FileOutputStream(file), type == null ? typeOf(file) : type, true);
+    }
+
+    /**
+     * 包装输出流
+     * <p>
+     * 压缩流使用同步刷新，flush 时已写入的数据可以被下游完整解压
+     * </p>
+     *
+     * @param out         输出流
+     * @param type        压缩格式
+     * @param closeTarget 关闭返回的流时是否关闭传入的流，不关闭时仍会写出压缩尾部
+     *
+     * @return 输出流
+     *
+     * @throws IOException 写入压缩头失败
+     */
+    OutputStream compress(OutputStream out, CompressionType type, boolean closeTarget) throws IOException {
+        OutputStream target = closeTarget ? out : new FilterOutputStream(out) {
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                out.write(b, off, len);
+            }
+
+            @Override
+            public void close() throws IOException {
+                // 不关闭调用方的流
+                out.flush();
+            }
+        };
+        if (type == null || type == CompressionType.NONE) {
+            return target;
+        }
+        if (type == CompressionType.GZIP) {
+            return new GZIPOutputStream(target, bufferSize, true);
+        }
+        return new DeflateOutputStream(target, bufferSize);
+    }
+
+    /**
+     * 根据文件头识别压缩格式
+     *
+     * @param b0 第一个字节，-1 表示没有
+     * @param b1 第二个字节，-1 表示没有
+     *
+     * @return 压缩格式
+     */
+    static CompressionType detect(int b0, int b1) {
+        if (b0 < 0 || b1 < 0) {
+            return CompressionType.NONE;
+        }
+        if (b0 == 0x1f && b1 == 0x8b) {
+            return CompressionType.GZIP;
+        }
+        // zlib 头：压缩方法为 8，窗口不超过 32K，未使用预置字典，且两字节按大端组成的整数能被 31 整除
+        if ((b0 & 0x0f) == 8 && (b0 >> 4) <= 7 && (b1 & 0x20) == 0 && ((b0 << 8) | b1) % 31 == 0) {
+            return CompressionType.DEFLATE;
+        }
+        return CompressionType.NONE;
+    }
+
+    /**
+     * 根据扩展名选择压缩格式
+     *
+     * @param file 文件
+     *
+     * @return 压缩格式
+     */
+    static CompressionType typeOf(File file) {
+        String name = file.getName().toLowerCase(Locale.ROOT);
+        if (name.endsWith(".gz") || name.endsWith(".gzip")) {
+            return CompressionType.GZIP;
+        }
+        if (name.endsWith(".zz") || name.endsWith(".zlib") || name.endsWith(".deflate")) {
+            return CompressionType.DEFLATE;
+        }
+        return CompressionType.NONE;
+    }
+
+    private InputStream decompress(InputStream in, CompressionType type) throws IOException {
+        InputStream inflated = type == CompressionType.GZIP
+                ? new GZIPInputStream(in, bufferSize)
+                : new InflateInputStream(in, bufferSize);
+        return pipelineDepth > 0 ? new PipelinedInputStream(inflated, bufferSize, pipelineDepth) : inflated;
+    }
+
+    /**
+     * 使用自定义缓冲区大小的 DEFLATE 输出流，关闭时释放 Deflater 的本地内存
+     */
+    private static final class DeflateOutputStream extends DeflaterOutputStream {
+        DeflateOutputStream(OutputStream out, int size) {
+            super(out, new Deflater(), size, true);
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                super.close();
+            } finally {
+                def.end();
+            }
+        }
+    }
+
+    /**
+     * 使用自定义缓冲区大小的 DEFLATE 输入流，关闭时释放 Inflater 的本地内存
+     */
+    private static final class InflateInputStream extends InflaterInputStream {
+        InflateInputStream(InputStream in, int size) {
+            super(in, new Inflater(), size);
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                super.close();
+            } finally {
+                inf.end();
+            }
+        }
+    }
+
+    /**
+     * 流水线输入流
+     * <p>
+     * 后台线程从源流读取（解压）数据填满缓冲块后放入有界队列，读取方依次取出。
+     * 缓冲块在两个队列之间循环复用，不随数据量增加分配。
+     * </p>
+     */
+    private static final class PipelinedInputStream extends InputStream {
+        private static final Chunk END = new Chunk(0);
+
+        private final BlockingQueue<Chunk> filled;
+        private final BlockingQueue<Chunk> free;
+        private final Thread producer;
+        private volatile Throwable error;
+
+        private final byte[] single = new byte[1];
+        private Chunk current;
+        private int position;
+        private boolean closed;
+
+        PipelinedInputStream(InputStream source, int chunkSize, int depth) {
+            // 队列中的块、读取方持有的块、后台线程正在填充的块，总数固定，决定了内存上限
+            int chunks = depth + 2;
+            this.free = new ArrayBlockingQueue<>(chunks);
+            // 多留一个位置给结束标记
+            this.filled = new ArrayBlockingQueue<>(chunks + 1);
+            for (int i = 0; i < chunks; i++) {
+                free.add(new Chunk(chunkSize));
+            }
+            this.producer = new Thread(() -> produce(source), "json-decompress");
+            producer.setDaemon(true);
+            producer.start();
+        }
+
+        private void produce(InputStream source) {
+            try (InputStream in = source) {
+                while (!Thread.currentThread().isInterrupted()) {
+                    Chunk chunk = free.take();
+                    int length = 0;
+                    int n = 0;
+                    while (length < chunk.data.length && (n = in.read(chunk.data, length, chunk.data.length - length)) >= 0) {
+                        length += n;
+                    }
+                    if (length > 0) {
+                        chunk.length = length;
+                        filled.put(chunk);
+                    }
+                    if (n < 0) {
+                        break;
+                    }
+                }
+            } catch (InterruptedException e) {
+                // 读取方已关闭
+            } catch (Throwable e) {
+                // 包括解压时的 RuntimeException/Error，交给读取方抛出，避免读取方一直等待
+                error = e;
+            } finally {
+                // 队列容量比块数多一个，结束标记一定能放入
+                filled.offer(END);
+            }
+        }
+
+        @Override
+        public int read() throws IOException {
+            int n = read(single, 0, 1);
+            return n < 0 ? -1 : single[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (closed) {
+                throw new IOException("流已关闭");
+            }
+            if (len == 0) {
+                return 0;
+            }
+            if (current == END) {
+                return endOfStream();
+            }
+            if (current == null || position == current.length) {
+                if (current != null) {
+                    free.offer(current);
+                }
+                try {
+                    current = filled.take();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("等待解压数据时被中断");
+                }
+                position = 0;
+                if (current == END) {
+                    return endOfStream();
+                }
+            }
+            int n = Math.min(len, current.length - position);
+            System.arraycopy(current.data, position, b, off, n);
+            position += n;
+            return n;
+        }
+
+        /**
+         * 到达结束标记后的每次读取都检查错误，解压失败时不会在重复读取时被当作正常结束
+         */
+        private int endOfStream() throws IOException {
+            if (error != null) {
+                throw new IOException("解压失败", error);
+            }
+            return -1;
+        }
+
+        @Override
+        public void close() {
+            if (!closed) {
+                closed = true;
+                // 后台线程退出时关闭源流
+                producer.interrupt();
+            }
+        }
+
+        private static final class Chunk {
+            final byte[] data;
+            int length;
+
+            Chunk(int size) {
+                data = new byte[size];
+            }
+        }
+    }
+}
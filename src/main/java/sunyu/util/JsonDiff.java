@@ -0,0 +1,352 @@
+package sunyu.util;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.NullNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * JSON 结构差异计算器
+ * <p>
+ * 比较两棵 JsonNode 树，生成 JSON Patch（RFC 6902）操作，路径格式与 setValueByJsonPtrExpr 兼容。
+ * 子树哈希值只计算一次并缓存，哈希不同的子树直接判定为有变化，避免对大数组反复调用 equals()。
+ * 数组默认按位置比较（先跳过相同的前缀和后缀），指定主键字段后按主键匹配元素，生成 add/remove/move 操作。
+ * </p>
+ * <p>
+ * 非线程安全，每次比较创建新实例。
+ * </p>
+ *
+ * @author SunYu
+ */
+class JsonDiff {
+    private final ObjectMapper objectMapper;
+    private final String arrayKey;
+    private final Consumer<ObjectNode> consumer;
+
+    /**
+     * 子树哈希缓存，以节点引用为键
+     */
+    private final Map<JsonNode, Integer> hashCache = new IdentityHashMap<>();
+
+    /**
+     * @param objectMapper ObjectMapper 实例，用于创建节点和读取子树
+     * @param arrayKey     数组元素的主键字段名，为 null 时数组按位置比较
+     * @param consumer     Patch 操作接收者
+     */
+    JsonDiff(ObjectMapper objectMapper, String arrayKey, Consumer<ObjectNode> consumer) {
+        this.objectMapper = objectMapper;
+        this.arrayKey = arrayKey;
+        this.consumer = consumer;
+    }
+
+    /**
+     * 比较两个节点，生成的操作交给 consumer
+     *
+     * @param source 源节点
+     * @param target 目标节点
+     * @param path   当前节点的 JSON Pointer 路径，根节点为 ""
+     */
+    void diff(JsonNode source, JsonNode target, String path) {
+        if (source == target || sameContent(source, target)) {
+            return;
+        }
+        if (source.isObject() && target.isObject()) {
+            diffObject((ObjectNode) source, (ObjectNode) target, path);
+        } else if (source.isArray() && target.isArray()) {
+            if (arrayKey == null || !diffKeyedArray((ArrayNode) source, (ArrayNode) target, path)) {
+                diffArray((ArrayNode) source, (ArrayNode) target, path);
+            }
+        } else {
+            emit("replace", path, target);
+        }
+    }
+
+    /**
+     * 流式比较两个解析器中的 JSON
+     * <p>
+     * 两个解析器同步前进，只有结构出现分歧的部分才会读取为子树：
+     * 对象按字段顺序同步比较，从第一个不同的字段名开始，读取两个对象剩余的字段再比较；
+     * 数组按位置同步比较，多出的元素逐个生成 add 或 remove 操作。
+     * 不支持按主键匹配数组元素。
+     * </p>
+     *
+     * @param source 源解析器，尚未读取任何 token
+     * @param target 目标解析器，尚未读取任何 token
+     *
+     * @throws IOException 读取失败
+     */
+    void diff(JsonParser source, JsonParser target) throws IOException {
+        source.nextToken();
+        target.nextToken();
+        if (source.currentToken() == null || target.currentToken() == null) {
+            diffMaterialized(readValue(source), readValue(target), "");
+            return;
+        }
+        diffStream(source, target, "");
+    }
+
+    private void diffStream(JsonParser source, JsonParser target, String path) throws IOException {
+        JsonToken a = source.currentToken();
+        JsonToken b = target.currentToken();
+        if (a == JsonToken.START_OBJECT && b == JsonToken.START_OBJECT) {
+            diffStreamObject(source, target, path);
+        } else if (a == JsonToken.START_ARRAY && b == JsonToken.START_ARRAY) {
+            diffStreamArray(source, target, path);
+        } else {
+            diffMaterialized(readValue(source), readValue(target), path);
+        }
+    }
+
+    private void diffStreamObject(JsonParser source, JsonParser target, String path) throws IOException {
+        while (true) {
+            String sourceName = source.nextFieldName();
+            String targetName = target.nextFieldName();
+            if (sourceName == null && targetName == null) {
+                return;
+            }
+            if (sourceName != null && sourceName.equals(targetName)) {
+                source.nextToken();
+                target.nextToken();
+                diffStream(source, target, path + "/" + escape(sourceName));
+                continue;
+            }
+            // 字段顺序出现分歧，读取两侧剩余字段后比较，剩余字段与已比较的字段互不重复
+            ObjectNode sourceRest = readRemainingFields(source, sourceName);
+            ObjectNode targetRest = readRemainingFields(target, targetName);
+            diffObject(sourceRest, targetRest, path);
+            hashCache.clear();
+            return;
+        }
+    }
+
+    private void diffStreamArray(JsonParser source, JsonParser target, String path) throws IOException {
+        int index = 0;
+        while (true) {
+            JsonToken a = source.nextToken();
+            JsonToken b = target.nextToken();
+            if (a == JsonToken.END_ARRAY && b == JsonToken.END_ARRAY) {
+                return;
+            }
+            if (a != JsonToken.END_ARRAY && b != JsonToken.END_ARRAY) {
+                diffStream(source, target, path + "/" + index);
+                index++;
+                continue;
+            }
+            if (a == JsonToken.END_ARRAY) {
+                // 目标数组更长，逐个追加
+                do {
+                    emit("add", path + "/" + index++, readValue(target));
+                } while (target.nextToken() != JsonToken.END_ARRAY);
+            } else {
+                // 源数组更长，同一位置重复删除
+                do {
+                    source.skipChildren();
+                    emit("remove", path + "/" + index, null);
+                } while (source.nextToken() != JsonToken.END_ARRAY);
+            }
+            return;
+        }
+    }
+
+    private ObjectNode readRemainingFields(JsonParser parser, String firstName) throws IOException {
+        ObjectNode rest = objectMapper.createObjectNode();
+        String name = firstName;
+        while (name != null) {
+            parser.nextToken();
+            rest.set(name, readValue(parser));
+            name = parser.nextFieldName();
+        }
+        return rest;
+    }
+
+    private JsonNode readValue(JsonParser parser) throws IOException {
+        if (parser.currentToken() == null) {
+            return NullNode.getInstance();
+        }
+        JsonNode node = objectMapper.readTree(parser);
+        return node == null ? NullNode.getInstance() : node;
+    }
+
+    private void diffMaterialized(JsonNode source, JsonNode target, String path) {
+        diff(source, target, path);
+        // 流式比较时只保留当前子树的哈希缓存，保证内存占用与文件大小无关
+        hashCache.clear();
+    }
+
+    private void diffObject(ObjectNode source, ObjectNode target, String path) {
+        for (Map.Entry<String, JsonNode> entry : source.properties()) {
+            if (!target.has(entry.getKey())) {
+                emit("remove", path + "/" + escape(entry.getKey()), null);
+            }
+        }
+        for (Map.Entry<String, JsonNode> entry : target.properties()) {
+            JsonNode sourceChild = source.get(entry.getKey());
+            String childPath = path + "/" + escape(entry.getKey());
+            if (sourceChild == null) {
+                emit("add", childPath, entry.getValue());
+            } else {
+                diff(sourceChild, entry.getValue(), childPath);
+            }
+        }
+    }
+
+    /**
+     * 按位置比较数组，跳过相同的前缀和后缀，中间部分逐位比较，多出的元素追加或删除
+     */
+    private void diffArray(ArrayNode source, ArrayNode target, String path) {
+        int sourceSize = source.size();
+        int targetSize = target.size();
+        int min = Math.min(sourceSize, targetSize);
+
+        int prefix = 0;
+        while (prefix < min && sameContent(source.get(prefix), target.get(prefix))) {
+            prefix++;
+        }
+        int suffix = 0;
+        while (suffix < min - prefix
+                && sameContent(source.get(sourceSize - 1 - suffix), target.get(targetSize - 1 - suffix))) {
+            suffix++;
+        }
+
+        int sourceMiddle = sourceSize - prefix - suffix;
+        int targetMiddle = targetSize - prefix - suffix;
+        int common = Math.min(sourceMiddle, targetMiddle);
+        for (int i = 0; i < common; i++) {
+            int index = prefix + i;
+            diff(source.get(index), target.get(index), path + "/" + index);
+        }
+        for (int i = common; i < targetMiddle; i++) {
+            int index = prefix + i;
+            emit("add", path + "/" + index, target.get(index));
+        }
+        // 从后往前删除，保证前面元素的索引不变
+        for (int i = sourceMiddle - 1; i >= common; i--) {
+            emit("remove", path + "/" + (prefix + i), null);
+        }
+    }
+
+    /**
+     * 按主键比较数组
+     *
+     * @return 如果数组元素不全是带有唯一主键的对象，返回 false，由调用方改为按位置比较
+     */
+    private boolean diffKeyedArray(ArrayNode source, ArrayNode target, String path) {
+        Map<JsonNode, JsonNode> sourceByKey = indexByKey(source);
+        Map<JsonNode, JsonNode> targetByKey = sourceByKey == null ? null : indexByKey(target);
+        if (targetByKey == null) {
+            return false;
+        }
+
+        // 先从后往前删除目标中不存在的元素
+        List<JsonNode> working = new ArrayList<>(source.size());
+        for (JsonNode element : source) {
+            JsonNode key = element.get(arrayKey);
+            if (targetByKey.containsKey(key)) {
+                working.add(key);
+            }
+        }
+        for (int i = source.size() - 1; i >= 0; i--) {
+            if (!targetByKey.containsKey(source.get(i).get(arrayKey))) {
+                emit("remove", path + "/" + i, null);
+            }
+        }
+
+        // 按目标顺序逐个对齐：位置一致直接比较，位置不一致则 move，不存在则 add
+        for (int i = 0; i < target.size(); i++) {
+            JsonNode element = target.get(i);
+            JsonNode key = element.get(arrayKey);
+            String childPath = path + "/" + i;
+            JsonNode sourceElement = sourceByKey.get(key);
+            if (sourceElement == null) {
+                emit("add", childPath, element);
+                working.add(i, key);
+                continue;
+            }
+            if (!key.equals(working.get(i))) {
+                int from = working.indexOf(key);
+                ObjectNode op = objectMapper.createObjectNode();
+                op.put("op", "move");
+                op.put("from", path + "/" + from);
+                op.put("path", childPath);
+                consumer.accept(op);
+                working.remove(from);
+                working.add(i, key);
+            }
+            diff(sourceElement, element, childPath);
+        }
+        return true;
+    }
+
+    private Map<JsonNode, JsonNode> indexByKey(ArrayNode array) {
+        Map<JsonNode, JsonNode> index = new HashMap<>(array.size() * 2);
+        for (JsonNode element : array) {
+            JsonNode key = element.isObject() ? element.get(arrayKey) : null;
+            if (key == null || !key.isValueNode() || index.put(key, element) != null) {
+                return null;
+            }
+        }
+        return index;
+    }
+
+    private boolean sameContent(JsonNode a, JsonNode b) {
+        return a.getNodeType() == b.getNodeType() && hash(a) == hash(b) && a.equals(b);
+    }
+
+    /**
+     * 计算子树哈希，容器节点的结果会被缓存；对象哈希与字段顺序无关，与 ObjectNode.equals 保持一致
+     */
+    private int hash(JsonNode node) {
+        if (!node.isContainerNode()) {
+            return node.hashCode();
+        }
+        Integer cached = hashCache.get(node);
+        if (cached != null) {
+            return cached;
+        }
+        int h;
+        if (node.isObject()) {
+            h = 1;
+            for (Map.Entry<String, JsonNode> entry : node.properties()) {
+                h += entry.getKey().hashCode() * 31 ^ hash(entry.getValue());
+            }
+        } else {
+            h = 2;
+            for (JsonNode child : node) {
+                h = 31 * h + hash(child);
+            }
+        }
+        hashCache.put(node, h);
+        return h;
+    }
+
+    private void emit(String op, String path, JsonNode value) {
+        ObjectNode node = objectMapper.createObjectNode();
+        node.put("op", op);
+        node.put("path", path);
+        if (value != null) {
+            node.set("value", value);
+        }
+        consumer.accept(node);
+    }
+
+    /**
+     * 转义 JSON Pointer token：~ 转为 ~0，/ 转为 ~1（顺序不可调换）
+     */
+    private static String escape(String token) {
+        if (token.indexOf('~') < 0 && token.indexOf('/') < 0) {
+            return token;
+        }
+        return token.replace("~", "~0").replace("/", "~1");
+    }
+}
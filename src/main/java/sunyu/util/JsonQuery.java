@@ -0,0 +1,619 @@
+package sunyu.util;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * 编译后的 JSON 查询
+ * <p>
+ * 在 JSON Pointer 的基础上增加通配符、递归下降、切片和简单条件，表达式编译一次后可重复使用，线程安全。
+ * </p>
+ * <ul>
+ * <li>以 / 分隔路径段，数字段既匹配对象字段名也匹配数组索引，如 "/library/books/0/title"</li>
+ * <li>* 匹配任意字段或数组元素，如 "/library/books/*&#47;title"</li>
+ * <li>** 匹配任意层级（包括零层），如 "/**&#47;title"；不以 / 开头的表达式等价于以 /** 开头</li>
+ * <li>[n] 数组索引（支持负数），[a:b] 数组切片（支持省略和负数），[*] 全部元素</li>
+ * <li>[?field op value] 条件，作用于数组时筛选元素，作用于其他节点时筛选节点本身，如 "books[?price>80]"；
+ * op 支持 ==、!=、&gt;、&gt;=、&lt;、&lt;=，省略 op 时判断字段存在且不为 null，字段支持 a.b 多级</li>
+ * </ul>
+ * <p>
+ * 不含负数索引或负数切片的查询只向前读取，可直接在 JsonParser 上流式执行，只有命中的节点和需要条件判断的节点才会加载到内存。
+ * 条件作用于数组时逐个加载元素判断；作用于对象本身时需要加载整个对象才能判断。因此条件前没有路径时，
+ * 如 "[?price&gt;80]"，根节点也是判断对象，根节点为对象时相当于读取整个文件；流式执行时应写出条件所在的数组，
+ * 如 "books[?price&gt;80]"、"/library/books[?price&gt;80]"。
+ * </p>
+ *
+ * @author SunYu
+ */
+public class JsonQuery {
+    private static final int NAME = 0;
+    private static final int WILDCARD = 1;
+    private static final int DESCENDANT = 2;
+    private static final int INDEX = 3;
+    private static final int SLICE = 4;
+    private static final int FILTER = 5;
+
+    /**
+     * 流式执行时使用 long 位图记录状态，步骤数受此限制
+     */
+    private static final int MAX_STEPS = 63;
+
+    private final String expression;
+    private final Step[] steps;
+    private final boolean streamable;
+
+    private JsonQuery(String expression, Step[] steps) {
+        this.expression = expression;
+        this.steps = steps;
+        boolean forwardOnly = true;
+        for (Step step : steps) {
+            if ((step.kind == INDEX && step.index < 0)
+                    || (step.kind == SLICE && (step.start < 0 || step.end < 0))) {
+                forwardOnly = false;
+                break;
+            }
+        }
+        this.streamable = forwardOnly;
+    }
+
+    /**
+     * 编译查询表达式
+     *
+     * @param expression 查询表达式
+     *
+     * @return 编译后的查询
+     *
+     * @throws IllegalArgumentException 表达式为空或语法错误
+     */
+    public static JsonQuery compile(String expression) {
+        if (expression == null) {
+            throw new IllegalArgumentException("查询表达式不能为空");
+        }
+        List<Step> steps = new ArrayList<>();
+        if (!expression.startsWith("/") && !expression.isEmpty()) {
+            steps.add(new Step(DESCENDANT));
+        }
+        for (String segment : splitSegments(expression)) {
+            parseSegment(expression, segment, steps);
+        }
+        if (steps.size() > MAX_STEPS) {
+            throw new IllegalArgumentException("查询表达式过长: " + expression);
+        }
+        return new JsonQuery(expression, steps.toArray(new Step[0]));
+    }
+
+    /**
+     * 是否可以流式执行（不含负数索引和负数切片）
+     *
+     * @return 可以流式执行返回 true
+     */
+    public boolean isStreamable() {
+        return streamable;
+    }
+
+    /**
+     * 在 JsonNode 树上执行查询
+     *
+     * @param root 根节点
+     *
+     * @return 命中的节点，按文档顺序排列，没有命中时返回空列表
+     */
+    public List<JsonNode> select(JsonNode root) {
+        Collector collector = new Collector();
+        if (root != null) {
+            eval(root, 0, collector);
+        }
+        return collector.nodes;
+    }
+
+    /**
+     * 在 JsonParser 上流式执行查询，每命中一个节点交给 consumer 处理
+     * <p>
+     * 条件作用于对象本身时，该对象会整体加载后判断，见类说明。
+     * </p>
+     *
+     * @param parser   JSON 解析器，尚未读取任何 token，需要设置 ObjectCodec
+     * @param consumer 命中节点的接收者
+     *
+     * @throws IOException              读取失败
+     * @throws IllegalStateException 查询不能流式执行
+     */
+    public void select(JsonParser parser, Consumer<JsonNode> consumer) throws IOException {
+        if (!streamable) {
+            throw new IllegalStateException("查询包含负数索引或负数切片，不能流式执行: " + expression);
+        }
+        if (parser.nextToken() != null) {
+            streamValue(parser, closure(1L), consumer);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return expression;
+    }
+
+    private void eval(JsonNode node, int index, Collector out) {
+        if (index == steps.length) {
+            out.add(node);
+            return;
+        }
+        Step step = steps[index];
+        switch (step.kind) {
+            case NAME: {
+                JsonNode child = node.isArray() ? (step.index >= 0 ? node.get(step.index) : null) : node.get(step.name);
+                if (child != null) {
+                    eval(child, index + 1, out);
+                }
+                break;
+            }
+            case WILDCARD:
+                for (JsonNode child : node) {
+                    eval(child, index + 1, out);
+                }
+                break;
+            case DESCENDANT:
+                eval(node, index + 1, out);
+                for (JsonNode child : node) {
+                    eval(child, index, out);
+                }
+                break;
+            case INDEX:
+                if (node.isArray()) {
+                    int i = step.index < 0 ? node.size() + step.index : step.index;
+                    if (i >= 0 && i < node.size()) {
+                        eval(node.get(i), index + 1, out);
+                    }
+                }
+                break;
+            case SLICE:
+                if (node.isArray()) {
+                    int size = node.size();
+                    int start = Math.max(0, step.start < 0 ? size + step.start : step.start);
+                    int end = Math.min(size, step.end < 0 ? size + step.end : step.end);
+                    for (int i = start; i < end; i++) {
+                        eval(node.get(i), index + 1, out);
+                    }
+                }
+                break;
+            case FILTER:
+                if (node.isArray()) {
+                    for (JsonNode child : node) {
+                        if (step.predicate.test(child)) {
+                            eval(child, index + 1, out);
+                        }
+                    }
+                } else if (step.predicate.test(node)) {
+                    eval(node, index + 1, out);
+                }
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * 流式执行，当前 token 为某个值的开始
+     *
+     * @param states 状态位图，第 i 位表示前 i 个步骤已匹配
+     */
+    private void streamValue(JsonParser p, long states, Consumer<JsonNode> consumer) throws IOException {
+        if (states == 0) {
+            p.skipChildren();
+            return;
+        }
+        JsonToken token = p.currentToken();
+        boolean array = token == JsonToken.START_ARRAY;
+        if ((states & (1L << steps.length)) != 0 || (!array && hasKind(states, FILTER))) {
+            // 命中或需要对当前节点做条件判断，加载当前节点后在树上执行剩余步骤
+            evalMaterialized(p.readValueAsTree(), states, consumer);
+            return;
+        }
+        if (token == JsonToken.START_OBJECT) {
+            while (p.nextToken() == JsonToken.FIELD_NAME) {
+                String name = p.currentName();
+                p.nextToken();
+                streamValue(p, closure(transition(states, name, -1)), consumer);
+            }
+        } else if (array) {
+            boolean filter = hasKind(states, FILTER);
+            int index = 0;
+            while (p.nextToken() != JsonToken.END_ARRAY) {
+                long next = closure(transition(states, null, index));
+                if (filter) {
+                    // 数组元素需要条件判断，加载元素后在树上执行
+                    JsonNode element = p.readValueAsTree();
+                    Collector collector = new Collector();
+                    for (int i = 0; i < steps.length; i++) {
+                        if ((states & (1L << i)) != 0 && steps[i].kind == FILTER && steps[i].predicate.test(element)) {
+                            evalClosure(element, closure(1L << (i + 1)), collector);
+                        }
+                    }
+                    evalClosure(element, next, collector);
+                    collector.nodes.forEach(consumer);
+                } else {
+                    streamValue(p, next, consumer);
+                }
+                index++;
+            }
+        }
+    }
+
+    private void evalMaterialized(JsonNode node, long states, Consumer<JsonNode> consumer) {
+        Collector collector = new Collector();
+        evalClosure(node, states, collector);
+        collector.nodes.forEach(consumer);
+    }
+
+    private void evalClosure(JsonNode node, long states, Collector collector) {
+        for (int i = 0; i <= steps.length; i++) {
+            if ((states & (1L << i)) != 0) {
+                eval(node, i, collector);
+            }
+        }
+    }
+
+    /**
+     * 计算读取子节点后的状态，条件步骤在调用方单独处理
+     *
+     * @param name  字段名，数组元素为 null
+     * @param index 数组索引，对象字段为 -1
+     */
+    private long transition(long states, String name, int index) {
+        long next = 0;
+        for (int i = 0; i < steps.length; i++) {
+            if ((states & (1L << i)) == 0) {
+                continue;
+            }
+            Step step = steps[i];
+            boolean matched;
+            switch (step.kind) {
+                case NAME:
+                    matched = name != null ? name.equals(step.name) : step.index == index;
+                    break;
+                case WILDCARD:
+                    matched = true;
+                    break;
+                case DESCENDANT:
+                    next |= 1L << i;
+                    matched = false;
+                    break;
+                case INDEX:
+                    matched = name == null && step.index == index;
+                    break;
+                case SLICE:
+                    matched = name == null && index >= step.start && index < step.end;
+                    break;
+                default:
+                    matched = false;
+                    break;
+            }
+            if (matched) {
+                next |= 1L << (i + 1);
+            }
+        }
+        return next;
+    }
+
+    /**
+     * 递归下降可以匹配零层，处于 ** 步骤时同时处于下一个步骤
+     */
+    private long closure(long states) {
+        for (int i = 0; i < steps.length; i++) {
+            if ((states & (1L << i)) != 0 && steps[i].kind == DESCENDANT) {
+                states |= 1L << (i + 1);
+            }
+        }
+        return states;
+    }
+
+    private boolean hasKind(long states, int kind) {
+        for (int i = 0; i < steps.length; i++) {
+            if ((states & (1L << i)) != 0 && steps[i].kind == kind) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 按 / 拆分路径段，忽略方括号和引号内的 /
+     */
+    private static List<String> splitSegments(String expression) {
+        List<String> segments = new ArrayList<>();
+        StringBuilder sb = new StringBuilder();
+        int depth = 0;
+        char quote = 0;
+        for (int i = 0; i < expression.length(); i++) {
+            char c = expression.charAt(i);
+            if (quote != 0) {
+                if (c == quote) {
+                    quote = 0;
+                }
+            } else if (c == '\'' || c == '"') {
+                quote = c;
+            } else if (c == '[') {
+                depth++;
+            } else if (c == ']') {
+                depth--;
+            } else if (c == '/' && depth == 0) {
+                if (sb.length() > 0) {
+                    segments.add(sb.toString());
+                    sb.setLength(0);
+                }
+                continue;
+            }
+            sb.append(c);
+        }
+        if (quote != 0 || depth != 0) {
+            throw new IllegalArgumentException("查询表达式引号或方括号不匹配: " + expression);
+        }
+        if (sb.length() > 0) {
+            segments.add(sb.toString());
+        }
+        return segments;
+    }
+
+    private static void parseSegment(String expression, String segment, List<Step> steps) {
+        if ("**".equals(segment)) {
+            steps.add(new Step(DESCENDANT));
+            return;
+        }
+        int bracket = segment.indexOf('[');
+        String base = bracket < 0 ? segment : segment.substring(0, bracket);
+        if ("*".equals(base)) {
+            steps.add(new Step(WILDCARD));
+        } else if (!base.isEmpty()) {
+            steps.add(Step.name(base.replace("~1", "/").replace("~0", "~")));
+        }
+        int pos = bracket;
+        while (pos >= 0 && pos < segment.length()) {
+            if (segment.charAt(pos) != '[') {
+                throw new IllegalArgumentException("查询表达式语法错误: " + expression);
+            }
+            int end = closingBracket(segment, pos);
+            steps.add(parseSelector(expression, segment.substring(pos + 1, end).trim()));
+            pos = end + 1;
+        }
+    }
+
+    private static int closingBracket(String segment, int open) {
+        char quote = 0;
+        for (int i = open + 1; i < segment.length(); i++) {
+            char c = segment.charAt(i);
+            if (quote != 0) {
+                if (c == quote) {
+                    quote = 0;
+                }
+            } else if (c == '\'' || c == '"') {
+                quote = c;
+            } else if (c == ']') {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("查询表达式方括号不匹配: " + segment);
+    }
+
+    private static Step parseSelector(String expression, String selector) {
+        try {
+            if ("*".equals(selector)) {
+                return new Step(WILDCARD);
+            }
+            if (selector.startsWith("?")) {
+                return Step.filter(Predicate.parse(selector.substring(1).trim()));
+            }
+            if (isQuoted(selector)) {
+                return Step.name(selector.substring(1, selector.length() - 1));
+            }
+            int colon = selector.indexOf(':');
+            if (colon >= 0) {
+                String start = selector.substring(0, colon).trim();
+                String end = selector.substring(colon + 1).trim();
+                Step step = new Step(SLICE);
+                step.start = start.isEmpty() ? 0 : Integer.parseInt(start);
+                step.end = end.isEmpty() ? Integer.MAX_VALUE : Integer.parseInt(end);
+                return step;
+            }
+            Step step = new Step(INDEX);
+            step.index = Integer.parseInt(selector);
+            return step;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("查询表达式语法错误: " + expression, e);
+        }
+    }
+
+    private static boolean isQuoted(String s) {
+        return s.length() >= 2 && (s.charAt(0) == '\'' || s.charAt(0) == '"') && s.charAt(s.length() - 1) == s.charAt(0);
+    }
+
+    /**
+     * 查询步骤
+     */
+    private static class Step {
+        private final int kind;
+        private String name;
+        private int index = -1;
+        private int start;
+        private int end;
+        private Predicate predicate;
+
+        private Step(int kind) {
+            this.kind = kind;
+        }
+
+        private static Step name(String name) {
+            Step step = new Step(NAME);
+            step.name = name;
+            if (!name.isEmpty() && name.length() < 10 && name.chars().allMatch(Character::isDigit)) {
+                step.index = Integer.parseInt(name);
+            }
+            return step;
+        }
+
+        private static Step filter(Predicate predicate) {
+            Step step = new Step(FILTER);
+            step.predicate = predicate;
+            return step;
+        }
+    }
+
+    /**
+     * 条件表达式：field op value 或 field
+     */
+    private static class Predicate {
+        private static final String[] OPERATORS = {"==", "!=", ">=", "<=", ">", "<"};
+
+        private final String[] field;
+        private final String operator;
+        private final Object literal;
+
+        private Predicate(String[] field, String operator, Object literal) {
+            this.field = field;
+            this.operator = operator;
+            this.literal = literal;
+        }
+
+        private static Predicate parse(String text) {
+            // 兼容 JSONPath 写法 (@.price > 80)
+            if (text.startsWith("(") && text.endsWith(")")) {
+                text = text.substring(1, text.length() - 1).trim();
+            }
+            int opPos = -1;
+            String operator = null;
+            char quote = 0;
+            for (int i = 0; i < text.length() && operator == null; i++) {
+                char c = text.charAt(i);
+                if (quote != 0) {
+                    if (c == quote) {
+                        quote = 0;
+                    }
+                    continue;
+                }
+                if (c == '\'' || c == '"') {
+                    quote = c;
+                    continue;
+                }
+                for (String op : OPERATORS) {
+                    if (text.startsWith(op, i)) {
+                        opPos = i;
+                        operator = op;
+                        break;
+                    }
+                }
+            }
+            String fieldText = (operator == null ? text : text.substring(0, opPos)).trim();
+            if (fieldText.startsWith("@.")) {
+                fieldText = fieldText.substring(2);
+            }
+            if (fieldText.isEmpty()) {
+                throw new IllegalArgumentException("条件表达式缺少字段: " + text);
+            }
+            Object literal = operator == null ? null : parseLiteral(text.substring(opPos + operator.length()).trim());
+            return new Predicate(fieldText.split("\\."), operator, literal);
+        }
+
+        private static Object parseLiteral(String text) {
+            if (isQuoted(text)) {
+                return text.substring(1, text.length() - 1);
+            }
+            if ("true".equals(text) || "false".equals(text)) {
+                return Boolean.valueOf(text);
+            }
+            if ("null".equals(text)) {
+                return null;
+            }
+            try {
+                return new BigDecimal(text);
+            } catch (NumberFormatException e) {
+                return text;
+            }
+        }
+
+        private boolean test(JsonNode node) {
+            JsonNode value = node;
+            for (String name : field) {
+                value = value.get(name);
+                if (value == null) {
+                    return false;
+                }
+            }
+            if (operator == null) {
+                return !value.isNull();
+            }
+            int cmp;
+            if (literal == null) {
+                cmp = value.isNull() ? 0 : 1;
+            } else if (literal instanceof BigDecimal) {
+                BigDecimal number = toNumber(value);
+                if (number == null) {
+                    return "!=".equals(operator);
+                }
+                cmp = number.compareTo((BigDecimal) literal);
+            } else if (literal instanceof Boolean) {
+                if (!value.isBoolean()) {
+                    return "!=".equals(operator);
+                }
+                cmp = Boolean.compare(value.booleanValue(), (Boolean) literal);
+            } else {
+                if (!value.isValueNode() || value.isNull()) {
+                    return "!=".equals(operator);
+                }
+                cmp = value.asText().compareTo((String) literal);
+            }
+            switch (operator) {
+                case "==":
+                    return cmp == 0;
+                case "!=":
+                    return cmp != 0;
+                case ">=":
+                    return cmp >= 0;
+                case "<=":
+                    return cmp <= 0;
+                case ">":
+                    return cmp > 0;
+                default:
+                    return cmp < 0;
+            }
+        }
+
+        /**
+         * 数字节点直接取值，文本节点尝试按数字解析（Long 类型序列化为字符串）
+         */
+        private static BigDecimal toNumber(JsonNode value) {
+            if (value.isNumber()) {
+                return value.decimalValue();
+            }
+            if (value.isTextual()) {
+                try {
+                    return new BigDecimal(value.textValue().trim());
+                } catch (NumberFormatException e) {
+                    return null;
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * 结果收集器，递归下降可能多次到达同一节点，按引用去重
+     */
+    private static class Collector {
+        private final List<JsonNode> nodes = new ArrayList<>();
+        private final Set<JsonNode> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+
+        private void add(JsonNode node) {
+            if (seen.add(node)) {
+                nodes.add(node);
+            }
+        }
+    }
+}
@@ -0,0 +1,467 @@
+package sunyu.util;
+
+import cn.hutool.core.util.StrUtil;
+import cn.hutool.log.Log;
+import cn.hutool.log.LogFactory;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * JSON 流式转换器
+ * <p>
+ * 从 JsonParser 逐个读取 token 写入 JsonGenerator，读取过程中按路径执行过滤、重命名、脱敏，
+ * 并可选择格式化或压缩输出。整个过程不构建 JsonNode 树，内存占用与文件大小无关。
+ * </p>
+ * <p>
+ * 路径使用 JSON Pointer 格式，如 "/data/token"、"/library/books/0/title"，
+ * 其中任意一段可以使用 * 匹配任意字段名或数组索引，如 "/library/books/*&#47;price"。
+ * 通过 {@link JsonUtil#transformer()} 创建，配置完成后可被多个线程同时使用。
+ * </p>
+ *
+ * @author SunYu
+ */
+public class JsonTransformer {
+    private final Log log = LogFactory.get();
+    private final JsonFactory jsonFactory;
+    private final JsonCompression compression;
+
+    private final List<Rule> includes = new ArrayList<>();
+    private final List<Rule> excludes = new ArrayList<>();
+    private final List<Rule> renames = new ArrayList<>();
+    private final List<Rule> redactions = new ArrayList<>();
+    private final List<Rule> masks = new ArrayList<>();
+
+    /**
+     * 是否格式化输出，默认压缩输出
+     */
+    private boolean pretty = false;
+
+    /**
+     * 输出压缩格式，null 表示文件按扩展名选择、流不压缩
+     */
+    private CompressionType outputCompression;
+
+    /**
+     * 默认脱敏替换值
+     */
+    private static final String DEFAULT_REPLACEMENT = "******";
+
+    JsonTransformer(JsonFactory jsonFactory, JsonCompression compression) {
+        this.jsonFactory = jsonFactory;
+        this.compression = compression;
+    }
+
+    /**
+     * 只保留指定路径（包括其下所有子节点），可多次调用，未调用时保留全部
+     *
+     * @param jsonPtrExprs 路径表达式
+     *
+     * @return 当前实例
+     */
+    public JsonTransformer include(String... jsonPtrExprs) {
+        for (String expr : jsonPtrExprs) {
+            includes.add(new Rule(expr, null, 0, 0));
+        }
+        return this;
+    }
+
+    /**
+     * 删除指定路径（包括其下所有子节点），优先于 include
+     *
+     * @param jsonPtrExprs 路径表达式
+     *
+     * @return 当前实例
+     */
+    public JsonTransformer exclude(String... jsonPtrExprs) {
+        for (String expr : jsonPtrExprs) {
+            excludes.add(new Rule(expr, null, 0, 0));
+        }
+        return this;
+    }
+
+    /**
+     * 重命名指定路径的字段
+     *
+     * @param jsonPtrExpr 路径表达式，最后一段为字段名
+     * @param newName     新字段名
+     *
+     * @return 当前实例
+     */
+    public JsonTransformer rename(String jsonPtrExpr, String newName) {
+        if (StrUtil.isBlank(newName)) {
+            throw new IllegalArgumentException("新字段名不能为空");
+        }
+        renames.add(new Rule(jsonPtrExpr, newName, 0, 0));
+        return this;
+    }
+
+    /**
+     * 将指定路径的值替换为 "******"
+     *
+     * @param jsonPtrExpr 路径表达式
+     *
+     * @return 当前实例
+     */
+    public JsonTransformer redact(String jsonPtrExpr) {
+        return redact(jsonPtrExpr, DEFAULT_REPLACEMENT);
+    }
+
+    /**
+     * 将指定路径的值替换为固定字符串，对象和数组整体替换
+     *
+     * @param jsonPtrExpr 路径表达式
+     * @param replacement 替换值
+     *
+     * @return 当前实例
+     */
+    public JsonTransformer redact(String jsonPtrExpr, String replacement) {
+        redactions.add(new Rule(jsonPtrExpr, replacement, 0, 0));
+        return this;
+    }
+
+    /**
+     * 掩码指定路径的值，保留首尾若干字符，其余替换为 *
+     * <p>
+     * 路径指向对象或数组时，掩码其下所有非 null 的标量值；值长度不超过保留长度时全部替换。
+     * </p>
+     *
+     * @param jsonPtrExpr 路径表达式
+     * @param keepStart   保留开头字符数
+     * @param keepEnd     保留结尾字符数
+     *
+     * @return 当前实例
+     */
+    public JsonTransformer mask(String jsonPtrExpr, int keepStart, int keepEnd) {
+        if (keepStart < 0 || keepEnd < 0) {
+            throw new IllegalArgumentException("保留字符数不能小于0");
+        }
+        masks.add(new Rule(jsonPtrExpr, null, keepStart, keepEnd));
+        return this;
+    }
+
+    /**
+     * 格式化输出
+     *
+     * @return 当前实例
+     */
+    public JsonTransformer pretty() {
+        this.pretty = true;
+        return this;
+    }
+
+    /**
+     * 压缩输出（默认）
+     *
+     * @return 当前实例
+     */
+    public JsonTransformer minify() {
+        this.pretty = false;
+        return this;
+    }
+
+    /**
+     * 指定输出压缩格式，未指定时输出文件按扩展名选择（如 .gz），输出流不压缩
+     *
+     * @param type 压缩格式
+     *
+     * @return 当前实例
+     */
+    public JsonTransformer compress(CompressionType type) {
+        this.outputCompression = type;
+        return this;
+    }
+
+    /**
+     * 转换 JSON 文件，压缩的输入文件按文件头自动识别
+     *
+     * @param in  输入文件
+     * @param out 输出文件
+     *
+     * @return 转换是否成功
+     */
+    public boolean transform(File in, File out) {
+        if (in == null || !in.exists() || out == null) {
+            log.warn("参数校验失败：in为{}，out为{}", in, out);
+            return false;
+        }
+        try (JsonParser parser = jsonFactory.createParser(compression.open(in));
+             JsonGenerator generator = jsonFactory.createGenerator(compression.create(out, outputCompression), JsonEncoding.UTF8)) {
+            transform(parser, generator);
+            return true;
+        } catch (IOException e) {
+            log.error("转换 JSON 文件失败，in: {}, out: {} {}", in, out, e);
+            return false;
+        }
+    }
+
+    /**
+     * 转换 JSON 流，压缩的输入流按文件头自动识别，不会关闭传入的流
+     *
+     * @param in  输入流
+     * @param out 输出流
+     *
+     * @return 转换是否成功
+     */
+    public boolean transform(InputStream in, OutputStream out) {
+        if (in == null || out == null) {
+            log.warn("参数校验失败：in为{}，out为{}", in, out);
+            return false;
+        }
+        // 包装后的流关闭时不关闭传入的流，压缩输出关闭时写出压缩尾部
+        try (JsonParser parser = jsonFactory.createParser(compression.decompress(in, false));
+             JsonGenerator generator = jsonFactory.createGenerator(
+                     compression.compress(out, outputCompression, false), JsonEncoding.UTF8)) {
+            transform(parser, generator);
+            return true;
+        } catch (IOException e) {
+            log.error("转换 JSON 流失败 {}", e);
+            return false;
+        }
+    }
+
+    /**
+     * 转换 JSON 字符串
+     *
+     * @param json JSON 字符串
+     *
+     * @return 转换后的 JSON 字符串，失败时返回 null
+     */
+    public String transform(String json) {
+        if (StrUtil.isBlank(json)) {
+            return null;
+        }
+        StringWriter writer = new StringWriter(json.length());
+        try (JsonParser parser = jsonFactory.createParser(json);
+             JsonGenerator generator = jsonFactory.createGenerator(writer)) {
+            transform(parser, generator);
+        } catch (IOException e) {
+            log.error("转换 JSON 字符串失败，JSON: {} {}", json, e);
+            return null;
+        }
+        return writer.toString();
+    }
+
+    /**
+     * 从解析器读取全部内容，转换后写入生成器
+     *
+     * @param parser    JSON 解析器
+     * @param generator JSON 生成器
+     *
+     * @throws IOException 读写失败
+     */
+    public void transform(JsonParser parser, JsonGenerator generator) throws IOException {
+        if (pretty) {
+            generator.useDefaultPrettyPrinter();
+        }
+        Path path = new Path();
+        while (parser.nextToken() != null) {
+            copyValue(parser, generator, path, includes.isEmpty() || covered(includes, path) != null);
+        }
+        generator.flush();
+    }
+
+    /**
+     * 复制当前值
+     *
+     * @param included 当前值是否整体被 include 选中，为 false 时还需要逐层判断
+     */
+    private void copyValue(JsonParser p, JsonGenerator g, Path path, boolean included) throws IOException {
+        JsonToken token = p.currentToken();
+        Rule redaction = covered(redactions, path);
+        if (redaction != null) {
+            p.skipChildren();
+            g.writeString(redaction.value);
+            return;
+        }
+        if (token == JsonToken.START_OBJECT) {
+            g.writeStartObject();
+            while (p.nextToken() == JsonToken.FIELD_NAME) {
+                String name = p.currentName();
+                path.push(name, -1);
+                p.nextToken();
+                copyChild(p, g, path, included, name);
+                path.pop();
+            }
+            g.writeEndObject();
+        } else if (token == JsonToken.START_ARRAY) {
+            g.writeStartArray();
+            int index = 0;
+            while (p.nextToken() != JsonToken.END_ARRAY) {
+                path.push(null, index++);
+                copyChild(p, g, path, included, null);
+                path.pop();
+            }
+            g.writeEndArray();
+        } else {
+            Rule mask = token == JsonToken.VALUE_NULL ? null : covered(masks, path);
+            if (mask != null) {
+                g.writeString(maskText(p.getText(), mask.keepStart, mask.keepEnd));
+            } else {
+                g.copyCurrentEventExact(p);
+            }
+        }
+    }
+
+    /**
+     * 判断子节点是否输出，输出时写入字段名（重命名后）并复制值
+     *
+     * @param name 字段名，数组元素为 null
+     */
+    private void copyChild(JsonParser p, JsonGenerator g, Path path, boolean parentIncluded, String name)
+            throws IOException {
+        if (covered(excludes, path) != null) {
+            p.skipChildren();
+            return;
+        }
+        boolean included = parentIncluded || covered(includes, path) != null;
+        // 未被选中的节点只有在其下还有 include 路径时才需要输出，此时标量值直接跳过
+        if (!included && (p.currentToken().isScalarValue() || !isPrefixOfAny(includes, path))) {
+            p.skipChildren();
+            return;
+        }
+        if (name != null) {
+            Rule rename = matched(renames, path);
+            g.writeFieldName(rename == null ? name : rename.value);
+        }
+        copyValue(p, g, path, included);
+    }
+
+    /**
+     * 查找覆盖当前路径（规则路径是当前路径本身或其祖先）的第一条规则
+     */
+    private static Rule covered(List<Rule> rules, Path path) {
+        for (Rule rule : rules) {
+            if (rule.segments.length <= path.depth && rule.matches(path, rule.segments.length)) {
+                return rule;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 查找与当前路径完全匹配的第一条规则
+     */
+    private static Rule matched(List<Rule> rules, Path path) {
+        for (Rule rule : rules) {
+            if (rule.segments.length == path.depth && rule.matches(path, path.depth)) {
+                return rule;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 判断当前路径是否是某条规则路径的祖先
+     */
+    private static boolean isPrefixOfAny(List<Rule> rules, Path path) {
+        for (Rule rule : rules) {
+            if (rule.segments.length > path.depth && rule.matches(path, path.depth)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String maskText(String text, int keepStart, int keepEnd) {
+        int length = text.length();
+        if (length <= keepStart + keepEnd) {
+            return StrUtil.repeat('*', length);
+        }
+        return text.substring(0, keepStart) + StrUtil.repeat('*', length - keepStart - keepEnd)
+                + text.substring(length - keepEnd);
+    }
+
+    /**
+     * 转换规则，路径在创建时预先解析
+     */
+    private static class Rule {
+        /**
+         * 路径段，* 匹配任意一段
+         */
+        private final String[] segments;
+
+        /**
+         * 路径段对应的数组索引，不是数字时为 -1
+         */
+        private final int[] indexes;
+
+        /**
+         * 规则参数：新字段名或替换值
+         */
+        private final String value;
+
+        private final int keepStart;
+        private final int keepEnd;
+
+        private Rule(String jsonPtrExpr, String value, int keepStart, int keepEnd) {
+            if (jsonPtrExpr == null) {
+                throw new IllegalArgumentException("路径表达式不能为空");
+            }
+            String expr = jsonPtrExpr.startsWith("/") ? jsonPtrExpr.substring(1) : jsonPtrExpr;
+            this.segments = Arrays.stream(expr.split("/"))
+                    .filter(s -> !s.isEmpty())
+                    .map(s -> s.replace("~1", "/").replace("~0", "~"))
+                    .toArray(String[]::new);
+            this.indexes = new int[segments.length];
+            for (int i = 0; i < segments.length; i++) {
+                indexes[i] = StrUtil.isNumeric(segments[i]) && segments[i].length() < 10
+                        ? Integer.parseInt(segments[i]) : -1;
+            }
+            this.value = value;
+            this.keepStart = keepStart;
+            this.keepEnd = keepEnd;
+        }
+
+        /**
+         * 判断规则路径的前 length 段是否与当前路径的前 length 段匹配
+         */
+        private boolean matches(Path path, int length) {
+            for (int i = 0; i < length; i++) {
+                String segment = segments[i];
+                if ("*".equals(segment)) {
+                    continue;
+                }
+                String name = path.names[i];
+                if (name == null ? indexes[i] != path.indexes[i] : !name.equals(segment)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * 当前读取位置的路径，对象字段记录字段名，数组元素记录索引
+     */
+    private static class Path {
+        private String[] names = new String[16];
+        private int[] indexes = new int[16];
+        private int depth;
+
+        private void push(String name, int index) {
+            if (depth == names.length) {
+                names = Arrays.copyOf(names, depth * 2);
+                indexes = Arrays.copyOf(indexes, depth * 2);
+            }
+            names[depth] = name;
+            indexes[depth] = index;
+            depth++;
+        }
+
+        private void pop() {
+            names[--depth] = null;
+        }
+    }
+}
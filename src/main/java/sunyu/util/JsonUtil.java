@@ -1,5 +1,6 @@
 package sunyu.util;
 
+import cn.hutool.core.util.HexUtil;
 import cn.hutool.core.util.StrUtil;
 import cn.hutool.log.Log;
 import cn.hutool.log.LogFactory;
@@ -8,26 +9,54 @@ import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JavaType;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.introspect.Annotated;
+import com.fasterxml.jackson.databind.introspect.AnnotatedClass;
+import com.fasterxml.jackson.databind.introspect.AnnotationIntrospectorPair;
+import com.fasterxml.jackson.databind.introspect.NopAnnotationIntrospector;
 import com.fasterxml.jackson.databind.module.SimpleModule;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
 import com.fasterxml.jackson.databind.ser.std.ToStringSerializer;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
 import com.fasterxml.jackson.datatype.jsr310.ser.LocalDateSerializer;
 import com.fasterxml.jackson.datatype.jsr310.ser.LocalDateTimeSerializer;
 
 import java.io.File;
 import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.text.SimpleDateFormat;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
 import java.util.Set;
 import java.util.TimeZone;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 /**
  * JSON工具类
@@ -38,6 +67,46 @@ public class JsonUtil implements AutoCloseable {
     private final Log log = LogFactory.get();
     private final Config config;
 
+    /**
+     * 字段投影 ObjectWriter 缓存，按类型和排序后的字段列表缓存
+     */
+    private final Map<Class<?>, Map<List<String>, ObjectWriter>> projectionWriters = new ConcurrentHashMap<>();
+
+    /**
+     * 最多缓存字段投影的类型数量，超出后新类型每次调用临时编译
+     */
+    private static final int MAX_PROJECTION_TYPES = 1024;
+
+    /**
+     * 每个类型最多缓存的字段投影数量，超出后每次调用临时编译
+     */
+    private static final int MAX_PROJECTIONS_PER_TYPE = 256;
+
+    /**
+     * 编译后的查询缓存，按表达式缓存
+     */
+    private final Map<String, JsonQuery> queries = new ConcurrentHashMap<>();
+
+    /**
+     * 最多缓存的查询数量，超出后每次调用临时编译
+     */
+    private static final int MAX_CACHED_QUERIES = 1024;
+
+    /**
+     * 按时区缓存的 ObjectWriter，与默认实例共用序列化器缓存
+     */
+    private final Map<ZoneId, ObjectWriter> zoneWriters = new ConcurrentHashMap<>();
+
+    /**
+     * 按时区缓存的 ObjectReader，与默认实例共用反序列化器缓存
+     */
+    private final Map<ZoneId, ObjectReader> zoneReaders = new ConcurrentHashMap<>();
+
+    /**
+     * 最多缓存的时区数量，超出后每次调用临时创建
+     */
+    private static final int MAX_CACHED_ZONES = 1024;
+
     /**
      * 创建 JacksonUtil 构建器
      *
@@ -85,18 +154,181 @@ public class JsonUtil implements AutoCloseable {
         // 注册 LocalDate 反序列化器
         customModule.addDeserializer(LocalDate.class, new CustomLocalDateDeserializer());
 
+        // 去重配置：复用大数组中重复的字符串值，字段名由 JsonFactory 默认的 INTERN_FIELD_NAMES 规范化
+        if (config.dedupCapacity > 0) {
+            StringDeduplicator deduplicator = new StringDeduplicator(config.dedupCapacity, config.dedupMaxLength);
+            // readTree 生成的文本节点
+            config.objectMapper.setNodeFactory(new DedupJsonNodeFactory(deduplicator));
+            // jsonToObj 生成的 String 字段和 Map 值
+            customModule.addDeserializer(String.class, new DedupStringDeserializer(deduplicator));
+        }
+
+        // 缓冲区回收配置：替换 JsonFactory 默认的线程本地回收池
+        if (config.recyclerPoolType != null) {
+            config.recyclerPool = new MeteredRecyclerPool(config.recyclerPoolType, config.recyclerPoolCapacity);
+            config.objectMapper.getFactory().setRecyclerPool(config.recyclerPool);
+        }
+
         // 注册自定义模块到 ObjectMapper
         config.objectMapper.registerModule(customModule);
 
+        // 编译期生成的处理器：只处理 @JsonCompiled 类本身，子类和配置了混入的类型使用标准处理器
+        if (config.compiledCodecs) {
+            registerCompiledCodecs(config);
+        }
+
         // 混入配置：添加忽略类型，使用 MixIn 接口忽略特定类的序列化/反序列化行为
         for (Class<?> mixin : config.mixins) {
             config.objectMapper.addMixIn(mixin, JsonIgnoreTypeInterface.class);
         }
 
+        // 投影配置：复制一份 ObjectMapper 专用于字段投影，未声明 @JsonFilter 的类型统一使用投影过滤器 ID；
+        // 副本有独立的序列化器缓存，带过滤器的序列化器不会影响常规序列化，也不改变 getObjectMapper() 的行为
+        config.projectionMapper = config.objectMapper.copy();
+        config.projectionMapper.setAnnotationIntrospector(AnnotationIntrospectorPair.pair(
+                config.projectionMapper.getSerializationConfig().getAnnotationIntrospector(),
+                new NopAnnotationIntrospector() {
+                    @Override
+                    public Object findFilterId(Annotated a) {
+                        return a instanceof AnnotatedClass ? ProjectionFilter.FILTER_ID : null;
+                    }
+                }));
+
+        // 压缩配置：文件读写自动识别 GZIP/DEFLATE
+        config.compression = new JsonCompression(config.compressionBufferSize, config.decompressPipelineDepth);
+
+        // 规范化配置：规范 JSON 输出和内容摘要
+        config.canonicalizer = new JsonCanonicalizer(config.objectMapper);
+        if (config.hashPrototype == null) {
+            try {
+                config.hashPrototype = MessageDigest.getInstance(config.hashAlgorithm);
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException("不支持的摘要算法: " + config.hashAlgorithm, e);
+            }
+        }
+
+        // 预热配置：提前构建注册类型的序列化器、反序列化器，避免首次调用时的延迟
+        if (!config.warmUpTypes.isEmpty()) {
+            warmUp(config);
+        }
+
         log.info("[{}] 构建结束", this.getClass().getSimpleName());
         this.config = config;
     }
 
+    /**
+     * 通过 ServiceLoader 加载 {@link JsonCompiledProcessor} 生成的处理器并注册到 ObjectMapper
+     *
+     * @param config 配置对象
+     */
+    private void registerCompiledCodecs(Config config) {
+        ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+        if (classLoader == null) {
+            classLoader = JsonUtil.class.getClassLoader();
+        }
+        CompiledCodecModule module = new CompiledCodecModule();
+        try {
+            for (CompiledJsonCodec<?> codec : ServiceLoader.load(CompiledJsonCodec.class, classLoader)) {
+                module.add(codec);
+                log.debug("[{}] 注册编译期处理器 {}", this.getClass().getSimpleName(), codec.getClass().getName());
+            }
+        } catch (ServiceConfigurationError e) {
+            log.warn("加载编译期处理器失败 {}", e);
+        }
+        if (!module.isEmpty()) {
+            config.objectMapper.registerModule(module);
+        }
+    }
+
+    /**
+     * 预热注册类型
+     * <p>
+     * 通过 writerFor/readerFor 提前解析根类型的序列化器和反序列化器（包括混入和嵌套属性类型），
+     * 结果缓存在 ObjectMapper 中；同时执行一次时间类型的序列化与反序列化，初始化日期格式化器。
+     * </p>
+     *
+     * @param config 配置对象
+     */
+    private void warmUp(Config config) {
+        long start = System.nanoTime();
+        ObjectMapper objectMapper = config.objectMapper;
+
+        // 解析器、生成器及时间类型的处理器
+        try {
+            Map<String, Object> sample = new HashMap<>();
+            sample.put("date", new Date());
+            sample.put("localDate", LocalDate.now());
+            sample.put("localDateTime", LocalDateTime.now());
+            sample.put("long", Long.MAX_VALUE);
+            String json = objectMapper.writeValueAsString(sample);
+            JsonNode node = objectMapper.readTree(json);
+            objectMapper.readValue(node.get("date").toString(), Date.class);
+            objectMapper.readValue(node.get("localDate").toString(), LocalDate.class);
+            objectMapper.readValue(node.get("localDateTime").toString(), LocalDateTime.class);
+        } catch (Exception e) {
+            log.warn("预热时间类型失败 {}", e.getMessage());
+        }
+
+        Map<String, Long> costs = new ConcurrentHashMap<>();
+        if (config.warmUpParallelism > 1 && config.warmUpTypes.size() > 1) {
+            ExecutorService executor = Executors.newFixedThreadPool(
+                    Math.min(config.warmUpParallelism, config.warmUpTypes.size()));
+            try {
+                List<Future<?>> futures = new ArrayList<>();
+                for (JavaType type : config.warmUpTypes) {
+                    futures.add(executor.submit(() -> warmUp(objectMapper, type, costs)));
+                }
+                // 逐个等待，某个类型失败不影响其他类型的等待和记录
+                for (int i = 0; i < futures.size(); i++) {
+                    try {
+                        futures.get(i).get();
+                    } catch (ExecutionException e) {
+                        log.warn("预热类型 {} 失败 {}", config.warmUpTypes.get(i).toCanonical(), e.getCause());
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                log.warn("预热被中断，未完成的类型不记录耗时");
+            } finally {
+                executor.shutdownNow();
+            }
+        } else {
+            for (JavaType type : config.warmUpTypes) {
+                warmUp(objectMapper, type, costs);
+            }
+        }
+
+        // 按注册顺序输出
+        for (JavaType type : config.warmUpTypes) {
+            String key = type.toCanonical();
+            Long cost = costs.get(key);
+            if (cost != null) {
+                config.warmUpCosts.put(key, cost);
+            }
+        }
+        log.info("[{}] 预热 {} 个类型耗时 {} ms，各类型耗时（微秒）{}", this.getClass().getSimpleName(),
+                config.warmUpTypes.size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), config.warmUpCosts);
+    }
+
+    /**
+     * 预热单个类型
+     *
+     * @param objectMapper ObjectMapper 实例
+     * @param type         类型
+     * @param costs        各类型耗时（微秒）
+     */
+    private void warmUp(ObjectMapper objectMapper, JavaType type, Map<String, Long> costs) {
+        long start = System.nanoTime();
+        try {
+            // 默认开启 EAGER_SERIALIZER_FETCH/EAGER_DESERIALIZER_FETCH，创建时即解析并缓存根类型的处理器
+            objectMapper.writerFor(type);
+            objectMapper.readerFor(type);
+            costs.put(type.toCanonical(), TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start));
+        } catch (Exception e) {
+            log.warn("预热类型 {} 失败 {}", type.toCanonical(), e);
+        }
+    }
+
     /**
      * 内部配置类，封装 ObjectMapper 及相关配置
      */
@@ -115,6 +347,86 @@ public class JsonUtil implements AutoCloseable {
          * 混入类型集合
          */
         private final Set<Class<?>> mixins = new HashSet<>();
+
+        /**
+         * 字符串去重表容量，0 表示不去重
+         */
+        private int dedupCapacity = 0;
+
+        /**
+         * 参与去重的字符串最大长度
+         */
+        private int dedupMaxLength = 64;
+
+        /**
+         * 缓冲区回收池类型，为 null 时使用 Jackson 默认回收池
+         */
+        private RecyclerPoolType recyclerPoolType;
+
+        /**
+         * 有界回收池容量，小于等于 0 时使用默认值
+         */
+        private int recyclerPoolCapacity = 0;
+
+        /**
+         * 缓冲区回收池实例
+         */
+        private MeteredRecyclerPool recyclerPool;
+
+        /**
+         * 需要预热的类型
+         */
+        private final List<JavaType> warmUpTypes = new ArrayList<>();
+
+        /**
+         * 预热线程数，1 表示在构建线程中依次预热
+         */
+        private int warmUpParallelism = 1;
+
+        /**
+         * 各类型预热耗时（微秒），按注册顺序
+         */
+        private final Map<String, Long> warmUpCosts = new LinkedHashMap<>();
+
+        /**
+         * 字段投影使用的 ObjectMapper，构建时从 objectMapper 复制
+         */
+        private ObjectMapper projectionMapper;
+
+        /**
+         * 是否注册编译期生成的处理器
+         */
+        private boolean compiledCodecs = true;
+
+        /**
+         * 压缩缓冲区大小
+         */
+        private int compressionBufferSize = JsonCompression.DEFAULT_BUFFER_SIZE;
+
+        /**
+         * 解压流水线队列深度，0 表示在解析线程中直接解压
+         */
+        private int decompressPipelineDepth = 0;
+
+        /**
+         * 压缩文件读写
+         */
+        private JsonCompression compression;
+
+        /**
+         * 内容摘要算法
+         */
+        private String hashAlgorithm = "SHA-256";
+
+        /**
+         * 摘要算法原型，每次计算时克隆，避免重复查找安全提供者
+         */
+        private MessageDigest hashPrototype;
+
+        /**
+         * 规范化 JSON 输出
+         */
+        private JsonCanonicalizer canonicalizer;
     }
 
     /**
@@ -178,6 +490,199 @@ public class JsonUtil implements AutoCloseable {
             config.mixins.add(target);
             return this;
         }
+
+        /**
+         * 设置缓冲区回收池类型，有界池使用默认容量
+         *
+         * @param type 回收池类型
+         *
+         * @return Builder 实例
+         */
+        public Builder setRecyclerPool(RecyclerPoolType type) {
+            return setRecyclerPool(type, 0);
+        }
+
+        /**
+         * 设置缓冲区回收池类型
+         * <p>
+         * 每次创建 JsonParser/JsonGenerator 都会从回收池获取读写缓冲区。Jackson 默认使用线程本地池，
+         * 大量短命线程或虚拟线程下几乎无法复用；此时可改用共享的并发双端队列池、有界池或分段池。
+         * 回收池统计可通过 {@link JsonUtil#getRecyclerPoolStats()} 获取。
+         * </p>
+         *
+         * @param type     回收池类型
+         * @param capacity 有界池容量（分段池为每个分段的容量），小于等于 0 时使用默认值
+         *
+         * @return Builder 实例
+         */
+        public Builder setRecyclerPool(RecyclerPoolType type, int capacity) {
+            if (type == null) {
+                throw new IllegalArgumentException("回收池类型不能为空");
+            }
+            config.recyclerPoolType = type;
+            config.recyclerPoolCapacity = capacity;
+            return this;
+        }
+
+        /**
+         * 开启字符串去重，使用默认容量 4096、最大长度 64
+         *
+         * @return Builder 实例
+         */
+        public Builder enableDeduplication() {
+            return enableDeduplication(4096, 64);
+        }
+
+        /**
+         * 开启字符串去重
+         * <p>
+         * readTree 和 jsonToObj 解析时，内容相同的短字符串值复用同一个实例，
+         * 适用于大量同构记录（如重复的 roles、orgName、tenantId）组成的大数组。
+         * 去重表容量固定，内存占用有上限，可被多个线程同时使用。
+         * </p>
+         *
+         * @param capacity  去重表容量，向上取整为 2 的幂
+         * @param maxLength 参与去重的字符串最大长度
+         *
+         * @return Builder 实例
+         *
+         * @throws IllegalArgumentException 容量或最大长度无效
+         */
+        public Builder enableDeduplication(int capacity, int maxLength) {
+            if (capacity <= 0 || maxLength <= 0) {
+                throw new IllegalArgumentException("去重表容量和字符串最大长度必须大于0");
+            }
+            config.dedupCapacity = capacity;
+            config.dedupMaxLength = maxLength;
+            return this;
+        }
+
+        /**
+         * 不注册编译期生成的处理器，@JsonCompiled 类型使用 Jackson 标准的反射方式处理
+         *
+         * @return Builder 实例
+         */
+        public Builder disableCompiledCodecs() {
+            config.compiledCodecs = false;
+            return this;
+        }
+
+        /**
+         * 注册需要预热的类型，build() 返回前提前构建其序列化器和反序列化器
+         * <p>
+         * 每个类型首次 jsonToObj/objToJson 需要内省属性并构建处理器，部署后首批请求和短生命周期任务的延迟因此偏高。
+         * 预热耗时通过 {@link JsonUtil#getWarmUpCosts()} 获取。
+         * </p>
+         *
+         * @param types 类型
+         *
+         * @return Builder 实例
+         */
+        public Builder warmUp(Class<?>... types) {
+            for (Class<?> type : types) {
+                if (type == null) {
+                    throw new IllegalArgumentException("预热类型不能为空");
+                }
+                config.warmUpTypes.add(config.objectMapper.getTypeFactory().constructType(type));
+            }
+            return this;
+        }
+
+        /**
+         * 注册需要预热的泛型类型，如 {@code new TypeReference<List<Book>>(){}}
+         *
+         * @param refs 类型引用
+         *
+         * @return Builder 实例
+         */
+        public Builder warmUp(TypeReference<?>... refs) {
+            for (TypeReference<?> ref : refs) {
+                if (ref == null) {
+                    throw new IllegalArgumentException("预热类型不能为空");
+                }
+                config.warmUpTypes.add(config.objectMapper.getTypeFactory().constructType(ref));
+            }
+            return this;
+        }
+
+        /**
+         * 设置预热线程数，类型较多时可并行预热
+         *
+         * @param parallelism 线程数，1 表示在构建线程中依次预热
+         *
+         * @return Builder 实例
+         */
+        public Builder setWarmUpParallelism(int parallelism) {
+            if (parallelism < 1) {
+                throw new IllegalArgumentException("预热线程数必须大于0");
+            }
+            config.warmUpParallelism = parallelism;
+            return this;
+        }
+
+        /**
+         * 设置压缩缓冲区大小，读写 GZIP/DEFLATE 文件时使用，默认 64KB
+         *
+         * @param bytes 字节数
+         *
+         * @return Builder 实例
+         */
+        public Builder setCompressionBufferSize(int bytes) {
+            if (bytes < 512) {
+                throw new IllegalArgumentException("压缩缓冲区不能小于512字节");
+            }
+            config.compressionBufferSize = bytes;
+            return this;
+        }
+
+        /**
+         * 开启流水线解压，读取压缩文件时由独立线程解压，解析线程只做 JSON 解析
+         * <p>
+         * 每个压缩流额外占用一个线程和 (队列深度 + 2) 个缓冲区，适用于多核下读取大文件。
+         * </p>
+         *
+         * @return Builder 实例
+         */
+        public Builder enablePipelinedDecompression() {
+            return enablePipelinedDecompression(JsonCompression.DEFAULT_PIPELINE_DEPTH);
+        }
+
+        /**
+         * 开启流水线解压
+         *
+         * @param depth 队列深度（缓冲块数）
+         *
+         * @return Builder 实例
+         */
+        public Builder enablePipelinedDecompression(int depth) {
+            if (depth <= 0) {
+                throw new IllegalArgumentException("队列深度必须大于0");
+            }
+            config.decompressPipelineDepth = depth;
+            return this;
+        }
+
+        /**
+         * 设置内容摘要算法，默认 SHA-256
+         *
+         * @param algorithm MessageDigest 算法名，如 "SHA-256"、"SHA-1"、"MD5"
+         *
+         * @return Builder 实例
+         *
+         * @throws IllegalArgumentException 不支持的算法
+         */
+        public Builder setHashAlgorithm(String algorithm) {
+            if (algorithm == null || algorithm.isEmpty()) {
+                throw new IllegalArgumentException("摘要算法不能为空");
+            }
+            try {
+                config.hashPrototype = MessageDigest.getInstance(algorithm);
+                config.hashAlgorithm = algorithm;
+                return this;
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalArgumentException("不支持的摘要算法: " + algorithm, e);
+            }
+        }
     }
 
     @Override
@@ -185,6 +690,10 @@ public class JsonUtil implements AutoCloseable {
         // 如果有需要关闭的资源，这里添加实际关闭逻辑
         // 目前ObjectMapper不需要显式关闭
         log.info("[{}] 销毁开始", this.getClass().getSimpleName());
+        // 释放回收池中缓存的缓冲区
+        if (config.recyclerPool != null) {
+            config.recyclerPool.clear();
+        }
         log.info("[{}] 销毁结束", this.getClass().getSimpleName());
     }
 
@@ -274,7 +783,7 @@ public class JsonUtil implements AutoCloseable {
      * 支持负数和正数整数，不支持浮点数和科学计数法
      * </p>
      */
-    private boolean isNumeric(String str) {
+    static boolean isNumeric(String str) {
         if (StrUtil.isBlank(str)) {
             return false;
         }
@@ -329,7 +838,7 @@ public class JsonUtil implements AutoCloseable {
      *
      * @return 路径段数组
      */
-    private String[] parseJsonPointerPath(String jsonPtrExpr) {
+    static String[] parseJsonPointerPath(String jsonPtrExpr) {
         if (jsonPtrExpr == null || jsonPtrExpr.isEmpty() || "/".equals(jsonPtrExpr)) {
             return new String[0];
         }
@@ -353,7 +862,7 @@ public class JsonUtil implements AutoCloseable {
      *
      * @return 反转义后的 token
      */
-    private String unescapeJsonPointerToken(String token) {
+    static String unescapeJsonPointerToken(String token) {
         if (token == null) {
             return null;
         }
@@ -505,6 +1014,10 @@ public class JsonUtil implements AutoCloseable {
                             e);
                     return false;
                 }
+            } else {
+                // 父节点是数组但索引不是数字，或父节点是值节点，与 PersistentJsonTree#set 一致视为路径无效
+                log.warn("路径无效，无法设置值，currentNode: {}, part: {}", currentNode, lastKey);
+                return false;
             }
             return true;
         } catch (Exception e) {
@@ -518,6 +1031,37 @@ public class JsonUtil implements AutoCloseable {
         }
     }
 
+    /**
+     * 创建不可变的持久化 JSON 树
+     * <p>
+     * 传入的节点会被深复制一次，之后修改原节点不影响树。树的更新通过 {@link PersistentJsonTree#set(String, Object)}
+     * 返回共享未修改子树的新树，读取无需加锁，适用于多线程共享、偶尔更新的配置树。
+     * </p>
+     *
+     * @param root JSON 根节点
+     *
+     * @return PersistentJsonTree 实例，root 为 null 时返回 null
+     */
+    public PersistentJsonTree persistentTree(JsonNode root) {
+        if (root == null) {
+            log.warn("参数校验失败：root为null");
+            return null;
+        }
+        return new PersistentJsonTree(config.objectMapper, root.deepCopy());
+    }
+
+    /**
+     * 解析 JSON 字符串并创建不可变的持久化 JSON 树
+     *
+     * @param json JSON 字符串
+     *
+     * @return PersistentJsonTree 实例，解析失败时返回 null
+     */
+    public PersistentJsonTree persistentTree(String json) {
+        JsonNode root = readTree(json);
+        return root == null ? null : new PersistentJsonTree(config.objectMapper, root);
+    }
+
     /**
      * 获取 ObjectMapper 实例
      *
@@ -528,10 +1072,28 @@ public class JsonUtil implements AutoCloseable {
     }
 
     /**
-     * 对象转换，将源对象转换为目标类型
+     * 获取缓冲区回收池统计
      *
-     * @param obj  源对象
-     * @param type 目标类型 Class
+     * @return 统计快照，未通过 Builder 设置回收池类型时返回 null
+     */
+    public RecyclerPoolStats getRecyclerPoolStats() {
+        return config.recyclerPool == null ? null : config.recyclerPool.stats();
+    }
+
+    /**
+     * 获取构建时各类型的预热耗时
+     *
+     * @return 类型 → 耗时（微秒），按注册顺序；未注册预热类型时为空，预热失败的类型不包含在内，失败原因见日志
+     */
+    public Map<String, Long> getWarmUpCosts() {
+        return Collections.unmodifiableMap(config.warmUpCosts);
+    }
+
+    /**
+     * 对象转换，将源对象转换为目标类型
+     *
+     * @param obj  源对象
+     * @param type 目标类型 Class
      * @param <T>  泛型类型
      *
      * @return 转换后的对象，如果 obj 为 null 返回 null
@@ -618,8 +1180,251 @@ public class JsonUtil implements AutoCloseable {
         }
     }
 
+    /**
+     * 对象转 JSON 字符串，只输出指定字段
+     * <p>
+     * 字段投影按（类型，字段集合）编译一次并缓存，序列化时直接跳过未选中的属性，
+     * 适用于只返回大对象部分字段的场景。多级字段使用 . 分隔，如 "data.token"；
+     * 选中某个字段时，其下所有子字段都会输出；集合中的每个元素使用同一投影。
+     * 对 Bean 和 Map 生效，JsonNode 不受投影影响。
+     * 投影使用构建时复制的 ObjectMapper，构建后通过 getObjectMapper() 修改的配置不会作用于投影输出。
+     * </p>
+     *
+     * @param obj    对象
+     * @param fields 需要输出的字段，为空时输出全部字段
+     *
+     * @return JSON 字符串
+     */
+    public String objToJson(Object obj, String... fields) {
+        if (obj == null) {
+            return null;
+        }
+        if (fields == null || fields.length == 0) {
+            return objToJson(obj);
+        }
+        try {
+            return projectionWriter(obj.getClass(), fields).writeValueAsString(obj);
+        } catch (JsonProcessingException e) {
+            log.error("对象转换为 JSON 字符串失败，对象: {}, 字段: {} {}", obj, fields, e);
+            return null;
+        }
+    }
+
+    /**
+     * 对象转 JSON 字符串，使用指定时区
+     * <p>
+     * 只在本次调用中覆盖构建时设置的时区，不需要为每个时区创建 JsonUtil。各时区的 ObjectWriter 缓存复用，
+     * 与默认时区共用同一个 ObjectMapper 及其序列化器缓存。java.util.Date 按该时区格式化；
+     * LocalDate/LocalDateTime 不含时区信息，输出不受影响。时区同时作为属性 ZoneId.class 传递，
+     * 自定义序列化器可通过 provider.getAttribute(ZoneId.class) 获取。
+     * </p>
+     *
+     * @param obj    对象
+     * @param zoneId 时区
+     *
+     * @return JSON 字符串
+     */
+    public String objToJsonInZone(Object obj, ZoneId zoneId) {
+        if (obj == null) {
+            return null;
+        }
+        if (zoneId == null) {
+            return objToJson(obj);
+        }
+        try {
+            return zoneWriter(zoneId).writeValueAsString(obj);
+        } catch (JsonProcessingException e) {
+            log.error("对象转换为 JSON 字符串失败，对象: {}, 时区: {} {}", obj, zoneId, e);
+            return null;
+        }
+    }
+
+    /**
+     * JSON 字符串转对象，使用指定时区
+     * <p>
+     * 只在本次调用中覆盖构建时设置的时区，java.util.Date 按该时区解析。
+     * 时区同时作为属性 ZoneId.class 传递，自定义反序列化器可通过 ctxt.getAttribute(ZoneId.class) 获取。
+     * </p>
+     *
+     * @param json   JSON 字符串
+     * @param type   目标对象类型
+     * @param zoneId 时区
+     * @param <T>    泛型类型
+     *
+     * @return 转换后的对象
+     */
+    public <T> T jsonToObj(String json, Class<T> type, ZoneId zoneId) {
+        if (StrUtil.isBlank(json)) {
+            return null;
+        }
+        if (zoneId == null) {
+            return jsonToObj(json, type);
+        }
+        try {
+            return zoneReader(zoneId).forType(type).readValue(json);
+        } catch (JsonProcessingException e) {
+            log.error("JSON 字符串转换为对象失败，JSON: {}, 目标类型: {}, 时区: {} {}", json, type.getName(), zoneId, e);
+            return null;
+        }
+    }
+
+    /**
+     * JSON 字符串转对象，使用指定时区（支持泛型）
+     *
+     * @param json   JSON 字符串
+     * @param ref    目标对象类型引用
+     * @param zoneId 时区
+     * @param <T>    泛型类型
+     *
+     * @return 转换后的对象
+     */
+    public <T> T jsonToObj(String json, TypeReference<T> ref, ZoneId zoneId) {
+        if (StrUtil.isBlank(json)) {
+            return null;
+        }
+        if (zoneId == null) {
+            return jsonToObj(json, ref);
+        }
+        try {
+            return zoneReader(zoneId).forType(ref).readValue(json);
+        } catch (JsonProcessingException e) {
+            log.error("JSON 字符串转换为对象失败，JSON: {}, 目标类型: {}, 时区: {} {}", json, ref.getType().getTypeName(), zoneId, e);
+            return null;
+        }
+    }
+
+    /**
+     * 获取指定时区的 ObjectWriter
+     *
+     * @param zoneId 时区
+     *
+     * @return ObjectWriter 实例
+     */
+    private ObjectWriter zoneWriter(ZoneId zoneId) {
+        ObjectWriter writer = zoneWriters.get(zoneId);
+        if (writer == null) {
+            // with(TimeZone) 复制配置中的 DateFormat 并设置时区，不会创建新的 ObjectMapper
+            writer = config.objectMapper.writer()
+                    .with(TimeZone.getTimeZone(zoneId))
+                    .withAttribute(ZoneId.class, zoneId);
+            if (zoneWriters.size() < MAX_CACHED_ZONES) {
+                zoneWriters.put(zoneId, writer);
+            }
+        }
+        return writer;
+    }
+
+    /**
+     * 获取指定时区的 ObjectReader
+     *
+     * @param zoneId 时区
+     *
+     * @return ObjectReader 实例
+     */
+    private ObjectReader zoneReader(ZoneId zoneId) {
+        ObjectReader reader = zoneReaders.get(zoneId);
+        if (reader == null) {
+            reader = config.objectMapper.reader()
+                    .with(TimeZone.getTimeZone(zoneId))
+                    .withAttribute(ZoneId.class, zoneId);
+            if (zoneReaders.size() < MAX_CACHED_ZONES) {
+                zoneReaders.put(zoneId, reader);
+            }
+        }
+        return reader;
+    }
+
+    /**
+     * 获取字段投影对应的 ObjectWriter，不存在时编译并缓存
+     *
+     * @param type   对象类型
+     * @param fields 需要输出的字段
+     *
+     * @return ObjectWriter 实例
+     */
+    private ObjectWriter projectionWriter(Class<?> type, String[] fields) {
+        String[] sorted = fields.clone();
+        Arrays.sort(sorted);
+        // 以列表为键，字段名中包含分隔符时也不会与其它字段集合冲突
+        List<String> key = Arrays.asList(sorted);
+        Map<List<String>, ObjectWriter> writers = projectionWriters.get(type);
+        if (writers == null) {
+            writers = new ConcurrentHashMap<>();
+            if (projectionWriters.size() < MAX_PROJECTION_TYPES) {
+                Map<List<String>, ObjectWriter> existing = projectionWriters.putIfAbsent(type, writers);
+                if (existing != null) {
+                    writers = existing;
+                }
+            }
+        }
+        ObjectWriter writer = writers.get(key);
+        if (writer == null) {
+            writer = config.projectionMapper.writerFor(type).with(new SimpleFilterProvider()
+                    .addFilter(ProjectionFilter.FILTER_ID, new ProjectionFilter(sorted)));
+            if (writers.size() < MAX_PROJECTIONS_PER_TYPE) {
+                writers.put(key, writer);
+            }
+        }
+        return writer;
+    }
+
+    /**
+     * 创建流式转换器
+     * <p>
+     * 转换器从输入逐个复制 token 到输出，过程中按路径执行过滤、重命名、脱敏及格式化，
+     * 不需要 readTree → setValueByJsonPtrExpr → objToJson 的整树读写，适用于大文件。
+     * </p>
+     * <pre>
+     * jsonUtil.transformer().exclude("/trace").mask("/data/token", 4, 4).pretty().transform(in, out);
+     * </pre>
+     *
+     * @return JsonTransformer 实例
+     */
+    public JsonTransformer transformer() {
+        return new JsonTransformer(config.objectMapper.getFactory(), config.compression);
+    }
+
+    /**
+     * 创建对象数组列式读取器
+     * <p>
+     * 一次遍历将指定路径下对象数组的选中字段读入 long[]、int[]、double[] 和字典编码的字符串列，
+     * 不创建 JsonNode 或 POJO，数值不装箱，内存占用和 GC 压力远小于 readTree/jsonToObj。
+     * </p>
+     * <pre>
+     * JsonColumns columns = jsonUtil.columnReader("/library/books").longColumn("id").doubleColumn("price").read(file);
+     * </pre>
+     *
+     * @param jsonPtrExpr 数组路径，JSON Pointer 格式，空字符串表示根节点
+     *
+     * @return JsonColumnReader 实例
+     */
+    public JsonColumnReader columnReader(String jsonPtrExpr) {
+        return new JsonColumnReader(config.objectMapper.getFactory(), config.compression, jsonPtrExpr);
+    }
+
+    /**
+     * 创建大数组流式写入器
+     * <p>
+     * 元素逐个序列化写出，不需要先收集为 List 再调用 objToJson，可按数量、字节数或时间刷新，
+     * 可开启有界队列异步写入以限制下游变慢时的内存占用。
+     * </p>
+     * <pre>
+     * try (JsonArrayWriter writer = jsonUtil.arrayWriter().wrapper("/data").flushEvery(1000).open(file)) {
+     *     writer.write(obj);
+     * }
+     * </pre>
+     *
+     * @return JsonArrayWriter.Builder 实例
+     */
+    public JsonArrayWriter.Builder arrayWriter() {
+        return new JsonArrayWriter.Builder(config.objectMapper, config.compression);
+    }
+
     /**
      * 流式读取大文件 JSON，使用 JsonParser 避免将整个文件加载到内存
+     * <p>
+     * GZIP/DEFLATE 压缩文件按文件头自动识别，边解压边解析，不生成临时文件
+     * </p>
      *
      * @param file JSON 文件
      *
@@ -629,7 +1434,7 @@ public class JsonUtil implements AutoCloseable {
         if (file == null || !file.exists()) {
             return null;
         }
-        try (JsonParser parser = config.objectMapper.getFactory().createParser(file)) {
+        try (JsonParser parser = config.objectMapper.getFactory().createParser(config.compression.open(file))) {
             return config.objectMapper.readTree(parser);
         } catch (IOException e) {
             log.error("读取 JSON 文件失败: {}", e);
@@ -705,4 +1510,271 @@ public class JsonUtil implements AutoCloseable {
         return root.at(jsonPtrExpr);
     }
 
+    /**
+     * 编译查询表达式，编译结果会被缓存
+     * <p>
+     * 语法见 {@link JsonQuery}，如 "/library/books/*&#47;title"、"books[?price&gt;80]"、"/library/books[0:2]"
+     * </p>
+     *
+     * @param expression 查询表达式
+     *
+     * @return 编译后的查询
+     *
+     * @throws IllegalArgumentException 表达式为空或语法错误
+     */
+    public JsonQuery compileQuery(String expression) {
+        if (expression == null) {
+            throw new IllegalArgumentException("查询表达式不能为空");
+        }
+        JsonQuery query = queries.get(expression);
+        if (query == null) {
+            query = JsonQuery.compile(expression);
+            if (queries.size() < MAX_CACHED_QUERIES) {
+                queries.put(expression, query);
+            }
+        }
+        return query;
+    }
+
+    /**
+     * 在 JSON 节点上执行查询，支持通配符、递归下降、切片和条件
+     *
+     * @param root       JSON 根节点
+     * @param expression 查询表达式，如 "/library/books/*&#47;title"
+     *
+     * @return 命中的节点列表，没有命中时返回空列表
+     *
+     * @throws IllegalArgumentException 表达式为空或语法错误
+     */
+    public List<JsonNode> query(JsonNode root, String expression) {
+        return compileQuery(expression).select(root);
+    }
+
+    /**
+     * 在 JSON 大文件上流式执行查询，每命中一个节点交给 consumer 处理
+     * <p>
+     * 只向前读取的查询直接在 JsonParser 上执行，只有命中的节点和需要条件判断的节点会加载到内存；
+     * 条件作用于对象本身时需要加载整个对象，条件前没有路径（如 "[?price&gt;80]"）且根节点为对象时相当于读取整个文件，
+     * 应写成 "books[?price&gt;80]" 这样作用于数组的形式。
+     * 包含负数索引或负数切片的查询需要先读取整个文件。压缩文件按文件头自动识别。
+     * </p>
+     *
+     * @param file       JSON 文件
+     * @param expression 查询表达式
+     * @param consumer   命中节点的接收者
+     *
+     * @return 查询是否成功
+     *
+     * @throws IllegalArgumentException 表达式为空或语法错误
+     */
+    public boolean query(File file, String expression, Consumer<JsonNode> consumer) {
+        if (file == null || !file.exists()) {
+            log.warn("参数校验失败：file为{}", file);
+            return false;
+        }
+        if (consumer == null) {
+            log.warn("参数校验失败：consumer为null");
+            return false;
+        }
+        JsonQuery query = compileQuery(expression);
+        if (!query.isStreamable()) {
+            log.warn("查询不能流式执行，将读取整个文件，表达式: {}", expression);
+            JsonNode root = readTree(file);
+            if (root == null) {
+                return false;
+            }
+            query.select(root).forEach(consumer);
+            return true;
+        }
+        try (JsonParser parser = config.objectMapper.getFactory().createParser(config.compression.open(file))) {
+            query.select(parser, consumer);
+            return true;
+        } catch (IOException e) {
+            log.error("查询 JSON 文件失败，文件: {}, 表达式: {} {}", file, expression, e);
+            return false;
+        }
+    }
+
+    /**
+     * 比较两个 JSON 节点，生成 JSON Patch（RFC 6902）操作列表
+     * <p>
+     * 操作路径为 JSON Pointer，与 setValueByJsonPtrExpr 兼容；未变化的子树通过哈希快速跳过。
+     * 数组按位置比较，插入或删除元素时只生成对应的 add/remove 操作。
+     * </p>
+     *
+     * @param source 源节点
+     * @param target 目标节点
+     *
+     * @return Patch 操作数组，两者相同时返回空数组，参数为 null 时返回 null
+     */
+    public ArrayNode diff(JsonNode source, JsonNode target) {
+        return diff(source, target, null);
+    }
+
+    /**
+     * 比较两个 JSON 节点，生成 JSON Patch（RFC 6902）操作列表，数组元素按主键匹配
+     * <p>
+     * 当数组元素都是带有唯一主键字段的对象时（如 books 数组的 "id"），按主键匹配元素，
+     * 元素顺序变化生成 move 操作；否则该数组仍按位置比较。
+     * </p>
+     *
+     * @param source   源节点
+     * @param target   目标节点
+     * @param arrayKey 数组元素的主键字段名，为 null 时数组按位置比较
+     *
+     * @return Patch 操作数组，两者相同时返回空数组，参数为 null 时返回 null
+     */
+    public ArrayNode diff(JsonNode source, JsonNode target, String arrayKey) {
+        if (source == null || target == null) {
+            log.warn("参数校验失败：source为{}，target为{}", source, target);
+            return null;
+        }
+        ArrayNode patch = createArrayNode();
+        new JsonDiff(config.objectMapper, arrayKey, patch::add).diff(source, target, "");
+        return patch;
+    }
+
+    /**
+     * 流式比较两个 JSON 大文件，生成 JSON Patch（RFC 6902）操作
+     * <p>
+     * 两个文件同步读取，只有出现差异的子树才会加载到内存，每生成一个操作就交给 consumer 处理。
+     * 对象字段顺序一致、数组按位置比较时内存占用与文件大小无关；不支持按主键匹配数组元素。
+     * 两个文件可以分别是普通或压缩文件。
+     * </p>
+     *
+     * @param source   源文件
+     * @param target   目标文件
+     * @param consumer Patch 操作接收者
+     *
+     * @return 比较是否成功
+     */
+    public boolean diff(File source, File target, Consumer<ObjectNode> consumer) {
+        if (source == null || !source.exists() || target == null || !target.exists() || consumer == null) {
+            log.warn("参数校验失败：source为{}，target为{}", source, target);
+            return false;
+        }
+        try (JsonParser sourceParser = config.objectMapper.getFactory().createParser(config.compression.open(source));
+             JsonParser targetParser = config.objectMapper.getFactory().createParser(config.compression.open(target))) {
+            new JsonDiff(config.objectMapper, null, consumer).diff(sourceParser, targetParser);
+            return true;
+        } catch (IOException e) {
+            log.error("比较 JSON 文件失败，source: {}, target: {} {}", source, target, e);
+            return false;
+        }
+    }
+
+    /**
+     * 对象转规范 JSON 字符串
+     * <p>
+     * 对象字段按名称排序，数值与 RFC 8785 一致按 double 取值（1、1.0、1e0 输出相同，超出 2^53 的整数和 BigDecimal 按 double 舍入），
+     * 输出能还原为同一 double 的最短形式，写法与 JavaScript 的 Number.prototype.toString 相同（如 0.000001、1e-7、1e+21），
+     * 无空白，字符串转义规则固定；
+     * 字段顺序不同、数值写法不同但内容相同的对象输出相同的字符串。对象先按 objToJson 的规则序列化。
+     * </p>
+     *
+     * @param obj 对象，JsonNode 直接按树处理
+     *
+     * @return 规范 JSON 字符串
+     */
+    public String objToCanonicalJson(Object obj) {
+        if (obj == null) {
+            return null;
+        }
+        try (JsonParser parser = canonicalParser(obj)) {
+            return config.canonicalizer.toString(parser);
+        } catch (IOException e) {
+            log.error("对象转换为规范 JSON 字符串失败，对象: {} {}", obj, e);
+            return null;
+        }
+    }
+
+    /**
+     * 计算对象内容摘要，可作为缓存键或去重键
+     * <p>
+     * 摘要为规范 JSON（见 {@link #objToCanonicalJson(Object)}）UTF-8 字节的摘要，
+     * 但计算时直接从序列化事件写入摘要算法，不生成 JSON 字符串。
+     * 字符串参数按 JSON 字符串值处理，JSON 文本请先 readTree。
+     * </p>
+     *
+     * @param obj 对象
+     *
+     * @return 十六进制小写摘要，失败时返回 null
+     */
+    public String hash(Object obj) {
+        if (obj == null) {
+            return null;
+        }
+        try (JsonParser parser = canonicalParser(obj)) {
+            return hash(parser);
+        } catch (IOException e) {
+            log.error("计算对象摘要失败，对象: {} {}", obj, e);
+            return null;
+        }
+    }
+
+    /**
+     * 计算 JSON 节点内容摘要，与等值对象的 hash(Object) 结果相同
+     *
+     * @param node JSON 节点
+     *
+     * @return 十六进制小写摘要，失败时返回 null
+     */
+    public String hash(JsonNode node) {
+        return hash((Object) node);
+    }
+
+    /**
+     * 流式计算 JSON 文件内容摘要，与 readTree 后计算的结果相同
+     * <p>
+     * 边解析边计算，数组元素不缓存；GZIP/DEFLATE 压缩文件按文件头自动识别。
+     * 对象的字段需要排序后输出，字段值先缓存在内存中，内存占用与文件中最大的对象成正比：
+     * 根节点为数组时只缓存单个元素，根节点为对象时整个文档都会被缓存，内存占用为 O(文档大小)。
+     * </p>
+     *
+     * @param file JSON 文件
+     *
+     * @return 十六进制小写摘要，失败时返回 null
+     */
+    public String hash(File file) {
+        if (file == null || !file.exists()) {
+            log.warn("参数校验失败：file为{}", file);
+            return null;
+        }
+        try (JsonParser parser = config.objectMapper.getFactory().createParser(config.compression.open(file))) {
+            return hash(parser);
+        } catch (IOException e) {
+            log.error("计算 JSON 文件摘要失败，文件: {} {}", file, e);
+            return null;
+        }
+    }
+
+    private String hash(JsonParser parser) throws IOException {
+        byte[] digest = config.canonicalizer.digest(parser, newDigest());
+        return digest == null ? null : HexUtil.encodeHexStr(digest);
+    }
+
+    /**
+     * JsonNode 直接遍历树，其他对象先序列化到 TokenBuffer，不生成 JSON 文本
+     */
+    private JsonParser canonicalParser(Object obj) throws IOException {
+        if (obj instanceof JsonNode) {
+            return config.objectMapper.treeAsTokens((JsonNode) obj);
+        }
+        TokenBuffer buffer = new TokenBuffer(config.objectMapper, false);
+        config.objectMapper.writeValue(buffer, obj);
+        return buffer.asParser();
+    }
+
+    private MessageDigest newDigest() {
+        try {
+            return (MessageDigest) config.hashPrototype.clone();
+        } catch (CloneNotSupportedException e) {
+            try {
+                return MessageDigest.getInstance(config.hashAlgorithm);
+            } catch (NoSuchAlgorithmException ex) {
+                throw new IllegalStateException("不支持的摘要算法: " + config.hashAlgorithm, ex);
+            }
+        }
+    }
+
 }
\ No newline at end of file
@@ -0,0 +1,159 @@
+package sunyu.util;
+
+import com.fasterxml.jackson.core.util.BufferRecycler;
+import com.fasterxml.jackson.core.util.JsonRecyclerPools;
+import com.fasterxml.jackson.core.util.RecyclerPool;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 带统计的缓冲区回收池
+ * <p>
+ * 包装一个实际的回收池，记录获取、归还和新建缓冲区的次数。
+ * 缓冲区关联到本实例，归还时经过本实例再交给实际的回收池。
+ * </p>
+ *
+ * @author SunYu
+ */
+class MeteredRecyclerPool implements RecyclerPool<BufferRecycler> {
+    private static final long serialVersionUID = 1L;
+
+    private final RecyclerPoolType type;
+    private final transient List<RecyclerPool<BufferRecycler>> stripes;
+    private final transient LongAdder acquired = new LongAdder();
+    private final transient LongAdder released = new LongAdder();
+    private final transient LongAdder created = new LongAdder();
+
+    /**
+     * @param type     回收池类型
+     * @param capacity 有界池容量，分段池为每个分段的容量，小于等于 0 时使用默认值
+     */
+    MeteredRecyclerPool(RecyclerPoolType type, int capacity) {
+        this.type = type;
+        switch (type) {
+            case THREAD_LOCAL:
+                stripes = Collections.singletonList(JsonRecyclerPools.threadLocalPool());
+                break;
+            case CONCURRENT_DEQUE:
+                stripes = Collections.singletonList(new ConcurrentDequePool(created));
+                break;
+            case BOUNDED:
+                stripes = Collections.singletonList(new BoundedPool(capacity, created));
+                break;
+            case STRIPED:
+                // 分段数取不小于 CPU 核数的 2 的幂，便于用位运算选择分段
+                int count = Integer.highestOneBit(Math.max(Runtime.getRuntime().availableProcessors(), 2) - 1) << 1;
+                List<RecyclerPool<BufferRecycler>> pools = new ArrayList<>(count);
+                for (int i = 0; i < count; i++) {
+                    pools.add(new BoundedPool(capacity, created));
+                }
+                stripes = pools;
+                break;
+            default:
+                throw new IllegalArgumentException("不支持的回收池类型: " + type);
+        }
+    }
+
+    @Override
+    public BufferRecycler acquireAndLinkPooled() {
+        acquired.increment();
+        if (type == RecyclerPoolType.THREAD_LOCAL) {
+            // 线程本地池嵌套使用时会返回同一个实例，不能关联，也不需要归还
+            return stripe().acquireAndLinkPooled();
+        }
+        return stripe().acquirePooled().withPool(this);
+    }
+
+    @Override
+    public BufferRecycler acquirePooled() {
+        acquired.increment();
+        return stripe().acquirePooled();
+    }
+
+    @Override
+    public void releasePooled(BufferRecycler pooled) {
+        released.increment();
+        stripe().releasePooled(pooled);
+    }
+
+    @Override
+    public int pooledCount() {
+        if (type == RecyclerPoolType.THREAD_LOCAL) {
+            return -1;
+        }
+        int count = 0;
+        for (RecyclerPool<BufferRecycler> stripe : stripes) {
+            count += stripe.pooledCount();
+        }
+        return count;
+    }
+
+    @Override
+    public boolean clear() {
+        boolean cleared = true;
+        for (RecyclerPool<BufferRecycler> stripe : stripes) {
+            cleared &= stripe.clear();
+        }
+        return cleared;
+    }
+
+    /**
+     * 获取统计信息
+     *
+     * @return 统计快照
+     */
+    RecyclerPoolStats stats() {
+        return new RecyclerPoolStats(type, acquired.sum(), released.sum(),
+                type == RecyclerPoolType.THREAD_LOCAL ? -1 : created.sum(), pooledCount());
+    }
+
+    private RecyclerPool<BufferRecycler> stripe() {
+        int count = stripes.size();
+        if (count == 1) {
+            return stripes.get(0);
+        }
+        long id = Thread.currentThread().getId();
+        return stripes.get((int) (id ^ (id >>> 16)) & (count - 1));
+    }
+
+    /**
+     * 并发双端队列池，记录新建次数
+     */
+    private static class ConcurrentDequePool extends RecyclerPool.ConcurrentDequePoolBase<BufferRecycler> {
+        private static final long serialVersionUID = 1L;
+        private final transient LongAdder created;
+
+        private ConcurrentDequePool(LongAdder created) {
+            super(SERIALIZATION_NON_SHARED);
+            this.created = created;
+        }
+
+        @Override
+        public BufferRecycler createPooled() {
+            created.increment();
+            return new BufferRecycler();
+        }
+    }
+
+    /**
+     * 有界池，记录新建次数
+     */
+    private static class BoundedPool extends RecyclerPool.BoundedPoolBase<BufferRecycler> {
+        private static final long serialVersionUID = 1L;
+        private final transient LongAdder created;
+
+        private BoundedPool(int capacity, LongAdder created) {
+            super(capacity);
+            this.created = created;
+        }
+
+        @Override
+        public BufferRecycler createPooled() {
+            created.increment();
+            return new BufferRecycler();
+        }
+    }
+}
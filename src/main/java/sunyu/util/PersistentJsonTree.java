@@ -0,0 +1,236 @@
+package sunyu.util;
+
+import cn.hutool.core.util.StrUtil;
+import cn.hutool.log.Log;
+import cn.hutool.log.LogFactory;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ContainerNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * 不可变的持久化 JSON 树
+ * <p>
+ * 与 {@link JsonUtil#setValueByJsonPtrExpr(JsonNode, String, Object)} 使用相同的 JSON Pointer 路径和节点创建规则，
+ * 但 set 不修改当前树，而是返回一棵新树：只复制从根到目标位置路径上的容器节点（路径复制），
+ * 其余子树由新旧两棵树共享。
+ * </p>
+ * <p>
+ * 更新代价：路径上的每个容器都整体复制一次子节点引用表，单次 set 的耗时和新分配内存与路径上各容器的子节点数之和成正比，
+ * 即 O(深度 × 扇出)，与路径以外的子树大小无关。对于子节点很多的宽对象或长数组（如上万个元素的数组），
+ * 每次更新都要复制整个引用表，频繁更新这类节点时持久化树并不比深复制划算，应改用可变树并自行加锁。
+ * </p>
+ * <p>
+ * 树一旦创建便不再修改，可以被任意多个线程同时读取而无需加锁。多线程共享时通常放在 volatile 字段或
+ * AtomicReference 中，更新时替换引用：
+ * </p>
+ * <pre>
+ * AtomicReference&lt;PersistentJsonTree&gt; ref = new AtomicReference&lt;&gt;(jsonUtil.persistentTree(json));
+ * ref.updateAndGet(tree -&gt; tree.set("/server/port", 8080));
+ * JsonNode port = ref.get().get("/server/port");
+ * </pre>
+ * <p>
+ * 注意：Jackson 的节点本身是可变的，get 和 root 返回的节点被多个版本共享，直接修改会同时改变所有共享它的版本，
+ * 并破坏无锁读取的线程安全。需要修改时先调用 {@link JsonNode#deepCopy()} 得到独立的副本，或使用 {@link #set(String, Object)}。
+ * </p>
+ *
+ * @author SunYu
+ */
+public final class PersistentJsonTree {
+    private static final Log log = LogFactory.get();
+
+    private final ObjectMapper objectMapper;
+    private final JsonNode root;
+
+    PersistentJsonTree(ObjectMapper objectMapper, JsonNode root) {
+        this.objectMapper = objectMapper;
+        this.root = root;
+    }
+
+    /**
+     * 获取根节点
+     *
+     * @return 根节点（与其它版本共享，不得修改，需要修改时先 deepCopy）
+     */
+    public JsonNode root() {
+        return root;
+    }
+
+    /**
+     * 获取 JSON 节点，使用 JSON Pointer 表达式定位节点
+     *
+     * @param jsonPtrExpr JSON Pointer 表达式，如 "/user/name" 或 "/users/0/name"
+     *
+     * @return 对应路径的 JsonNode（与其它版本共享，不得修改，需要修改时先 deepCopy），如果路径不存在则返回 MissingNode
+     */
+    public JsonNode get(String jsonPtrExpr) {
+        return root.at(jsonPtrExpr);
+    }
+
+    /**
+     * 设置 JSON 节点的值，返回新树，当前树保持不变
+     * <p>
+     * 对于不存在的中间节点，会自动创建相应的对象或数组节点，规则与 setValueByJsonPtrExpr 相同。
+     * 传入的 JsonNode 值会先复制一份，之后调用方再修改它不会影响树。
+     * </p>
+     *
+     * @param jsonPtrExpr JSON Pointer 表达式，如 "/user/name" 或 "/users/0/name"
+     * @param value       要设置的值(不存在的节点将创建)
+     *
+     * @return 新树，参数或路径无效时返回 null
+     */
+    public PersistentJsonTree set(String jsonPtrExpr, Object value) {
+        if (StrUtil.isBlank(jsonPtrExpr) || !(root instanceof ContainerNode)) {
+            log.warn("参数校验失败：root为{}，jsonPtrExpr为{}", root.getNodeType(), jsonPtrExpr);
+            return null;
+        }
+        String[] parts = JsonUtil.parseJsonPointerPath(jsonPtrExpr);
+        if (parts.length == 0) {
+            // 全路径设置时与 setValueByJsonPtrExpr 一致：对象清空，数组不变
+            return root instanceof ObjectNode ? new PersistentJsonTree(objectMapper, objectMapper.createObjectNode()) : this;
+        }
+
+        JsonNode valueNode;
+        try {
+            valueNode = toJsonNode(value);
+        } catch (Exception e) {
+            log.warn("无法序列化对象到JsonNode，类型: {}", value.getClass().getName(), e);
+            return null;
+        }
+
+        JsonNode newRoot = copyPath((ContainerNode<?>) root, parts, 0, valueNode);
+        return newRoot == null ? null : new PersistentJsonTree(objectMapper, newRoot);
+    }
+
+    @Override
+    public String toString() {
+        return root.toString();
+    }
+
+    /**
+     * 复制 node 并在副本中设置 parts[depth] 对应的子节点，递归处理剩余路径
+     *
+     * @return node 的副本，路径无效时返回 null
+     */
+    private JsonNode copyPath(ContainerNode<?> node, String[] parts, int depth, JsonNode value) {
+        String part = JsonUtil.unescapeJsonPointerToken(parts[depth]);
+        boolean last = depth == parts.length - 1;
+
+        if (node instanceof ObjectNode) {
+            ObjectNode copy = copy((ObjectNode) node);
+            if (last) {
+                copy.set(part, value);
+                return copy;
+            }
+            JsonNode child = node.get(part);
+            if (child == null) {
+                child = createContainer(parts, depth + 1);
+            }
+            JsonNode newChild = copyChild(child, parts, depth, value);
+            if (newChild == null) {
+                return null;
+            }
+            copy.set(part, newChild);
+            return copy;
+        }
+
+        ArrayNode array = (ArrayNode) node;
+        if (!JsonUtil.isNumeric(part)) {
+            log.warn("路径无效，数组索引不是数字，part: {}", part);
+            return null;
+        }
+        int index;
+        try {
+            index = Integer.parseInt(part);
+        } catch (NumberFormatException e) {
+            log.error("索引格式错误: {}", part, e);
+            return null;
+        }
+        ArrayNode copy = copy(array);
+        if (last) {
+            if (index < 0) {
+                index = copy.size() + index;
+                if (index < 0) {
+                    log.warn("无效的负索引，index: {}", index);
+                    return null;
+                }
+            }
+            if (index >= copy.size()) {
+                // 与 setValueByJsonPtrExpr 一致，越界时追加到末尾
+                copy.add(value);
+            } else {
+                copy.set(index, value);
+            }
+            return copy;
+        }
+        // 空数组时负索引保持为负数以触发后续检查
+        if (index < 0 && !copy.isEmpty()) {
+            index = copy.size() + index;
+        }
+        if (index < 0) {
+            log.warn("索引越界，无法创建节点，index: {}, arraySize: {}", index, copy.size());
+            return null;
+        }
+        // 扩展数组到所需大小
+        while (copy.size() <= index) {
+            copy.addNull();
+        }
+        JsonNode child = copy.get(index);
+        if (child.isNull()) {
+            child = createContainer(parts, depth + 1);
+        }
+        JsonNode newChild = copyChild(child, parts, depth, value);
+        if (newChild == null) {
+            return null;
+        }
+        copy.set(index, newChild);
+        return copy;
+    }
+
+    private JsonNode copyChild(JsonNode child, String[] parts, int depth, JsonNode value) {
+        if (!(child instanceof ContainerNode)) {
+            log.warn("路径无效，无法创建节点，currentNode: {}, part: {}", child, parts[depth + 1]);
+            return null;
+        }
+        return copyPath((ContainerNode<?>) child, parts, depth + 1, value);
+    }
+
+    /**
+     * 根据下一个路径段是否为数字决定创建数组还是对象
+     */
+    private ContainerNode<?> createContainer(String[] parts, int next) {
+        if (JsonUtil.isNumeric(JsonUtil.unescapeJsonPointerToken(parts[next]))) {
+            return objectMapper.createArrayNode();
+        }
+        return objectMapper.createObjectNode();
+    }
+
+    /**
+     * 浅复制对象节点，子节点引用共享
+     */
+    private static ObjectNode copy(ObjectNode node) {
+        ObjectNode copy = node.objectNode();
+        copy.setAll(node);
+        return copy;
+    }
+
+    /**
+     * 浅复制数组节点，预留一个追加位置，子节点引用共享
+     */
+    private static ArrayNode copy(ArrayNode node) {
+        ArrayNode copy = node.arrayNode(node.size() + 1);
+        copy.addAll(node);
+        return copy;
+    }
+
+    private JsonNode toJsonNode(Object value) {
+        if (value == null) {
+            return objectMapper.nullNode();
+        } else if (value instanceof JsonNode) {
+            // 复制一份，避免调用方之后修改传入的节点
+            return ((JsonNode) value).deepCopy();
+        }
+        return objectMapper.valueToTree(value);
+    }
+}
@@ -0,0 +1,95 @@
+package sunyu.util;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonStreamContext;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.PropertyWriter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 字段投影过滤器
+ * <p>
+ * 将 "id"、"data.token" 这样的字段路径编译为前缀树，序列化时根据当前输出位置判断属性是否需要输出，
+ * 未选中的属性直接跳过，不会先生成再丢弃。数组对路径透明，数组中的每个元素使用同一层级的规则。
+ * 选中某个字段时，其下所有子字段都会输出。
+ * </p>
+ *
+ * @author SunYu
+ */
+class ProjectionFilter extends SimpleBeanPropertyFilter {
+    /**
+     * 过滤器 ID，字段投影时所有未声明 @JsonFilter 的类型都使用该 ID
+     */
+    static final String FILTER_ID = "sunyu.util.JsonUtil.projection";
+
+    private final Node root = new Node();
+
+    /**
+     * @param fields 字段路径，多级字段使用 . 分隔，如 "data.token"
+     */
+    ProjectionFilter(String... fields) {
+        for (String field : fields) {
+            if (field == null || field.isEmpty()) {
+                continue;
+            }
+            Node node = root;
+            for (String name : field.split("\\.")) {
+                if (node.all) {
+                    break;
+                }
+                node = node.children.computeIfAbsent(name, k -> new Node());
+            }
+            // 选中整个字段，其下的规则不再需要
+            node.all = true;
+            node.children.clear();
+        }
+    }
+
+    @Override
+    public void serializeAsField(Object pojo, JsonGenerator jgen, SerializerProvider provider, PropertyWriter writer)
+            throws Exception {
+        Node node = nodeFor(jgen.getOutputContext());
+        if (node != null && (node.all || node.children.containsKey(writer.getName()))) {
+            writer.serializeAsField(pojo, jgen, provider);
+        } else if (!jgen.canOmitFields()) {
+            writer.serializeAsOmittedField(pojo, jgen, provider);
+        }
+    }
+
+    /**
+     * 根据输出上下文找到当前对象对应的规则节点
+     *
+     * @param context 当前对象的输出上下文
+     *
+     * @return 规则节点，当前对象不在投影范围内时返回 null
+     */
+    private Node nodeFor(JsonStreamContext context) {
+        JsonStreamContext parent = context.getParent();
+        if (parent == null || parent.inRoot()) {
+            return root;
+        }
+        Node parentNode = nodeFor(parent);
+        if (parentNode == null || parentNode.all || parent.inArray()) {
+            return parentNode;
+        }
+        return parentNode.children.get(parent.getCurrentName());
+    }
+
+    /**
+     * 前缀树节点
+     */
+    private static class Node {
+        /**
+         * 是否输出全部子字段
+         */
+        private boolean all;
+
+        /**
+         * 需要输出的子字段
+         */
+        private final Map<String, Node> children = new HashMap<>();
+    }
+}
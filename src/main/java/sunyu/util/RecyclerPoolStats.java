@@ -0,0 +1,81 @@
+package sunyu.util;
+
+/**
+ * 缓冲区回收池统计
+ *
+ * @author SunYu
+ */
+public class RecyclerPoolStats {
+    private final RecyclerPoolType type;
+    private final long acquired;
+    private final long released;
+    private final long created;
+    private final int pooled;
+
+    RecyclerPoolStats(RecyclerPoolType type, long acquired, long released, long created, int pooled) {
+        this.type = type;
+        this.acquired = acquired;
+        this.released = released;
+        this.created = created;
+        this.pooled = pooled;
+    }
+
+    /**
+     * @return 回收池类型
+     */
+    public RecyclerPoolType getType() {
+        return type;
+    }
+
+    /**
+     * @return 累计获取次数
+     */
+    public long getAcquired() {
+        return acquired;
+    }
+
+    /**
+     * @return 累计归还次数，线程本地池不归还，始终为 0
+     */
+    public long getReleased() {
+        return released;
+    }
+
+    /**
+     * @return 累计新建缓冲区数量，即未命中池的次数；线程本地池无法统计，返回 -1
+     */
+    public long getCreated() {
+        return created;
+    }
+
+    /**
+     * @return 当前池中空闲的缓冲区数量，线程本地池无法统计，返回 -1
+     */
+    public int getPooled() {
+        return pooled;
+    }
+
+    /**
+     * @return 正在使用的缓冲区数量
+     */
+    public long getInUse() {
+        return type == RecyclerPoolType.THREAD_LOCAL ? -1 : acquired - released;
+    }
+
+    /**
+     * @return 命中率（复用次数 / 获取次数），线程本地池无法统计，返回 -1
+     */
+    public double getHitRate() {
+        if (created < 0) {
+            return -1;
+        }
+        return acquired == 0 ? 0 : (double) (acquired - created) / acquired;
+    }
+
+    @Override
+    public String toString() {
+        return "RecyclerPoolStats{type=" + type + ", acquired=" + acquired + ", released=" + released
+                + ", created=" + created + ", pooled=" + pooled + ", inUse=" + getInUse()
+                + ", hitRate=" + String.format("%.4f", getHitRate()) + '}';
+    }
+}
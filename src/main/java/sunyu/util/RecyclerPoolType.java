@@ -0,0 +1,31 @@
+package sunyu.util;
+
+/**
+ * 缓冲区回收池类型
+ * <p>
+ * 决定 JsonFactory 创建的 JsonParser/JsonGenerator 如何复用读写缓冲区
+ * </p>
+ *
+ * @author SunYu
+ */
+public enum RecyclerPoolType {
+    /**
+     * 线程本地池，每个线程持有一份缓冲区；适用于少量长期存活的平台线程，大量短命线程或虚拟线程下几乎无法复用
+     */
+    THREAD_LOCAL,
+
+    /**
+     * 全局共享的并发双端队列池，容量不限
+     */
+    CONCURRENT_DEQUE,
+
+    /**
+     * 全局共享的有界池，超出容量的缓冲区直接丢弃
+     */
+    BOUNDED,
+
+    /**
+     * 分段有界池，按线程 ID 选择分段，降低高并发下的竞争
+     */
+    STRIPED
+}
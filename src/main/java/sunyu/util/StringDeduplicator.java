@@ -0,0 +1,79 @@
+package sunyu.util;
+
+import com.fasterxml.jackson.databind.node.TextNode;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 字符串去重表
+ * <p>
+ * 固定容量的无锁规范化表，按哈希值定位槽位，命中相同内容时返回已有实例，冲突时直接覆盖旧值。
+ * 容量固定，内存占用有上限；超过长度上限的字符串不参与去重。可被多个线程同时使用。
+ * </p>
+ *
+ * @author SunYu
+ */
+class StringDeduplicator {
+    private final int mask;
+    private final int maxLength;
+    private final AtomicReferenceArray<String> strings;
+    private final AtomicReferenceArray<TextNode> textNodes;
+
+    /**
+     * @param capacity  表容量，向上取整为 2 的幂
+     * @param maxLength 参与去重的字符串最大长度
+     */
+    StringDeduplicator(int capacity, int maxLength) {
+        int size = Integer.highestOneBit(Math.max(capacity, 16) - 1) << 1;
+        this.mask = size - 1;
+        this.maxLength = maxLength;
+        this.strings = new AtomicReferenceArray<>(size);
+        this.textNodes = new AtomicReferenceArray<>(size);
+    }
+
+    /**
+     * 返回内容相同的规范化字符串实例
+     *
+     * @param value 字符串
+     *
+     * @return 规范化后的字符串，不参与去重时返回原字符串
+     */
+    String dedup(String value) {
+        if (value == null || value.length() > maxLength) {
+            return value;
+        }
+        int index = slot(value);
+        String existing = strings.get(index);
+        if (value.equals(existing)) {
+            return existing;
+        }
+        strings.lazySet(index, value);
+        return value;
+    }
+
+    /**
+     * 返回内容相同的规范化 TextNode 实例，TextNode 不可变，可安全共享
+     *
+     * @param value 字符串
+     *
+     * @return 规范化后的 TextNode，不参与去重时返回新实例
+     */
+    TextNode dedupNode(String value) {
+        if (value.length() > maxLength) {
+            return new TextNode(value);
+        }
+        int index = slot(value);
+        TextNode existing = textNodes.get(index);
+        if (existing != null && value.equals(existing.textValue())) {
+            return existing;
+        }
+        TextNode node = new TextNode(dedup(value));
+        textNodes.lazySet(index, node);
+        return node;
+    }
+
+    private int slot(String value) {
+        int h = value.hashCode();
+        return (h ^ (h >>> 16)) & mask;
+    }
+}
@@ -0,0 +1,162 @@
+package sunyu.util.test;
+
+import cn.hutool.log.Log;
+import cn.hutool.log.LogFactory;
+import com.fasterxml.jackson.databind.JsonNode;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import sunyu.util.JsonUtil;
+
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+
+/**
+ * 热点路径分配量回归测试
+ * <p>
+ * 使用 ThreadMXBean 的线程分配计数统计每次操作分配的字节数，与 allocation-budgets.properties 中的预算比较，
+ * 超出时测试失败。每个操作分别在单线程和多线程下执行，多线程时同时输出吞吐量。
+ * 默认构建跳过单元测试，通过 mvn test -Pperf 运行。
+ * </p>
+ * <p>
+ * 热点路径的分配量合理增加时，根据日志中的实测值更新预算文件。
+ * </p>
+ */
+public class AllocationBudgetTest {
+    private static final Log log = LogFactory.get();
+
+    private static final int WARM_UP = 20000;
+    private static final int ITERATIONS = 50000;
+    private static final int THREADS = 4;
+
+    private static final String BOOK_JSON = "{\"id\":\"1\",\"title\":\"Java编程思想\",\"price\":108.0}";
+    private static final String LIBRARY_JSON = "{\"library\":{\"books\":[" +
+            "{\"id\":1,\"title\":\"Java编程思想\",\"price\":108}," +
+            "{\"id\":2,\"title\":\"深入理解Java虚拟机\",\"price\":89}," +
+            "{\"id\":3,\"title\":\"Effective Java\",\"price\":79}]}}";
+
+    private static com.sun.management.ThreadMXBean threadMXBean;
+    private static Properties budgets;
+    private static JsonUtil jsonUtil;
+
+    /**
+     * 保存每次操作的结果，避免被 JIT 优化掉
+     */
+    private static volatile Object sink;
+
+    @BeforeAll
+    static void setUp() throws Exception {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        Assumptions.assumeTrue(bean instanceof com.sun.management.ThreadMXBean, "当前 JVM 不支持线程分配计数");
+        threadMXBean = (com.sun.management.ThreadMXBean) bean;
+        Assumptions.assumeTrue(threadMXBean.isThreadAllocatedMemorySupported(), "当前 JVM 不支持线程分配计数");
+        threadMXBean.setThreadAllocatedMemoryEnabled(true);
+
+        budgets = new Properties();
+        try (InputStream in = AllocationBudgetTest.class.getResourceAsStream("/allocation-budgets.properties")) {
+            Assertions.assertNotNull(in, "缺少 allocation-budgets.properties");
+            budgets.load(in);
+        }
+        jsonUtil = JsonUtil.builder().build();
+    }
+
+    @AfterAll
+    static void tearDown() {
+        if (jsonUtil != null) {
+            jsonUtil.close();
+        }
+    }
+
+    @Test
+    void t001() throws Exception {
+        check("jsonToObj", () -> jsonUtil.jsonToObj(BOOK_JSON, TestUtil.Book.class));
+    }
+
+    @Test
+    void t002() throws Exception {
+        TestUtil.Book book = jsonUtil.jsonToObj(BOOK_JSON, TestUtil.Book.class);
+        check("objToJson", () -> jsonUtil.objToJson(book));
+    }
+
+    @Test
+    void t003() throws Exception {
+        // 每个线程修改各自的树
+        ThreadLocal<JsonNode> roots = ThreadLocal.withInitial(() -> jsonUtil.readTree(LIBRARY_JSON));
+        check("setValueByJsonPtrExpr", () -> jsonUtil.setValueByJsonPtrExpr(roots.get(), "/library/books/1/title", "Java"));
+    }
+
+    @Test
+    void t004() throws Exception {
+        check("localDateTimeDeserializer", () -> jsonUtil.jsonToObj("\"2025-07-09 15:19:49\"", LocalDateTime.class));
+    }
+
+    @Test
+    void t005() throws Exception {
+        check("localDateDeserializer", () -> jsonUtil.jsonToObj("\"2025-07-09\"", LocalDate.class));
+    }
+
+    @Test
+    void t006() throws Exception {
+        check("isJsonOrArray", () -> jsonUtil.isJsonOrArray(LIBRARY_JSON));
+    }
+
+    /**
+     * 分别在单线程和多线程下测量，任一超出预算即失败
+     */
+    private void check(String name, Supplier<Object> operation) throws Exception {
+        String value = budgets.getProperty(name);
+        Assertions.assertNotNull(value, "allocation-budgets.properties 中缺少预算: " + name);
+        long budget = Long.parseLong(value.trim());
+
+        long single = measure(operation);
+        log.info("{} 单线程每次分配 {} 字节，预算 {} 字节", name, single, budget);
+        Assertions.assertTrue(single <= budget, name + " 单线程每次分配 " + single + " 字节，超出预算 " + budget + " 字节");
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<Long>> futures = new ArrayList<>();
+            long start = System.nanoTime();
+            for (int i = 0; i < THREADS; i++) {
+                futures.add(executor.submit(() -> measure(operation)));
+            }
+            long max = 0;
+            for (Future<Long> future : futures) {
+                max = Math.max(max, future.get());
+            }
+            double seconds = (System.nanoTime() - start) / 1e9;
+            log.info("{} {} 线程每次最多分配 {} 字节，吞吐量 {} 次/秒", name, THREADS, max,
+                    (long) (THREADS * (WARM_UP + ITERATIONS) / seconds));
+            Assertions.assertTrue(max <= budget, name + " 多线程每次分配 " + max + " 字节，超出预算 " + budget + " 字节");
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * 预热后测量当前线程每次操作平均分配的字节数
+     */
+    private long measure(Supplier<Object> operation) {
+        for (int i = 0; i < WARM_UP; i++) {
+            sink = operation.get();
+        }
+        long threadId = Thread.currentThread().getId();
+        long before = threadMXBean.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < ITERATIONS; i++) {
+            sink = operation.get();
+        }
+        long after = threadMXBean.getThreadAllocatedBytes(threadId);
+        return (after - before) / ITERATIONS;
+    }
+}
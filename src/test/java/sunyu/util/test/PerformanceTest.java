@@ -0,0 +1,429 @@
+package sunyu.util.test;
+
+import cn.hutool.core.io.FileUtil;
+import cn.hutool.log.Log;
+import cn.hutool.log.LogFactory;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import org.junit.jupiter.api.Test;
+import sunyu.util.JsonArrayWriter;
+import sunyu.util.JsonUtil;
+import sunyu.util.PersistentJsonTree;
+import sunyu.util.RecyclerPoolType;
+
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * 耗时、吞吐量与内存占用对比
+ * <p>
+ * 数据量大、运行时间长，只输出对比结果不做断言，与 AllocationBudgetTest 一起通过 mvn test -Pperf 运行。
+ * 功能正确性由 TestUtil 中对应的单元测试保证。
+ * </p>
+ */
+public class PerformanceTest {
+    private static final Log log = LogFactory.get();
+
+    @Test
+    void t001() {
+        // 生成大量同构记录，比较开启去重前后 readTree/jsonToObj 的内存占用
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < 200000; i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append("{\"userId\":\"").append(i).append("\",\"roles\":\"超级管理员\",")
+                    .append("\"orgName\":\"洋马农机（中国）有限公司\",\"tenantId\":\"").append(i % 8)
+                    .append("\",\"status\":\"").append(i % 2 == 0 ? "ENABLED" : "DISABLED").append("\"}");
+        }
+        sb.append(']');
+        String json = sb.toString();
+
+        JsonUtil plain = JsonUtil.builder().build();
+        JsonUtil dedup = JsonUtil.builder().enableDeduplication().build();
+
+        long plainTree = retainedBytes(() -> plain.readTree(json));
+        long dedupTree = retainedBytes(() -> dedup.readTree(json));
+        log.info("readTree 内存占用：不去重 {} KB，去重 {} KB，节省 {} KB",
+                plainTree / 1024, dedupTree / 1024, (plainTree - dedupTree) / 1024);
+
+        long plainList = retainedBytes(() -> plain.jsonToObj(json, List.class));
+        long dedupList = retainedBytes(() -> dedup.jsonToObj(json, List.class));
+        log.info("jsonToObj 内存占用：不去重 {} KB，去重 {} KB，节省 {} KB",
+                plainList / 1024, dedupList / 1024, (plainList - dedupList) / 1024);
+
+        plain.close();
+        dedup.close();
+    }
+
+    @Test
+    void t002() throws Exception {
+        String json = "{\"library\":{\"books\":[" +
+                "{\"id\":1,\"title\":\"Java编程思想\",\"price\":108}," +
+                "{\"id\":2,\"title\":\"深入理解Java虚拟机\",\"price\":89}," +
+                "{\"id\":3,\"title\":\"Effective Java\",\"price\":79}]}}";
+        int tasks = 200000;
+
+        // 虚拟线程需要 JDK 21+，通过反射创建，低版本 JDK 只测试平台线程
+        ExecutorService virtual = null;
+        try {
+            virtual = (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (NoSuchMethodException e) {
+            log.info("当前 JDK 不支持虚拟线程");
+        }
+
+        for (RecyclerPoolType type : RecyclerPoolType.values()) {
+            JsonUtil platformUtil = JsonUtil.builder().setRecyclerPool(type).build();
+            ExecutorService platform = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors() * 4);
+            long cost = runTasks(platform, tasks, () -> platformUtil.objToJson(platformUtil.readTree(json)));
+            platform.shutdown();
+            log.info("平台线程 {} 耗时 {} ms，{}", type, cost, platformUtil.getRecyclerPoolStats());
+            platformUtil.close();
+
+            if (virtual != null) {
+                JsonUtil virtualUtil = JsonUtil.builder().setRecyclerPool(type).build();
+                cost = runTasks(virtual, tasks, () -> virtualUtil.objToJson(virtualUtil.readTree(json)));
+                log.info("虚拟线程 {} 耗时 {} ms，{}", type, cost, virtualUtil.getRecyclerPoolStats());
+                virtualUtil.close();
+            }
+        }
+        if (virtual != null) {
+            virtual.shutdown();
+        }
+    }
+
+    private long runTasks(ExecutorService executor, int tasks, Runnable task) throws Exception {
+        // 预热
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < tasks / 10; i++) {
+            futures.add(executor.submit(task));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        futures.clear();
+        long start = System.currentTimeMillis();
+        for (int i = 0; i < tasks; i++) {
+            futures.add(executor.submit(task));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        return System.currentTimeMillis() - start;
+    }
+
+    @Test
+    void t003() throws Exception {
+        // 异步写入大量元素，下游变慢时 tryWrite 超时返回 false
+        JsonUtil jsonUtil = JsonUtil.builder().build();
+        File file = File.createTempFile("books", ".json");
+        file.deleteOnExit();
+        int count = 1000000;
+        long start = System.currentTimeMillis();
+        int rejected = 0;
+        try (JsonArrayWriter writer = jsonUtil.arrayWriter().queueCapacity(1024).flushBytes(1 << 20).open(file)) {
+            for (long i = 0; i < count; i++) {
+                TestUtil.Book book = new TestUtil.Book();
+                book.setId(i);
+                book.setTitle("title" + i);
+                if (!writer.tryWrite(book, 1, TimeUnit.SECONDS)) {
+                    rejected++;
+                }
+            }
+            writer.flush();
+            log.info("已写出 {} 个元素，拒绝 {} 个", writer.getCount(), rejected);
+        }
+        log.info("异步写入 {} 个元素耗时 {} ms，文件大小 {} 字节", count, System.currentTimeMillis() - start, file.length());
+        jsonUtil.close();
+    }
+
+    @Test
+    void t004() {
+        String json = "{\"id\":1,\"title\":\"Java编程思想\",\"price\":108}";
+        String listJson = "[" + json + "]";
+
+        // 先用 Map 加载 Jackson 公共类，只比较 Book 首次调用的差异
+        JsonUtil coldUtil = JsonUtil.builder().build();
+        coldUtil.objToJson(coldUtil.jsonToObj(json, Map.class));
+        long start = System.nanoTime();
+        coldUtil.objToJson(coldUtil.jsonToObj(json, TestUtil.Book.class));
+        coldUtil.jsonToObj(listJson, new TypeReference<List<TestUtil.Book>>() {
+        });
+        log.info("未预热首次调用耗时 {} 微秒", (System.nanoTime() - start) / 1000);
+        coldUtil.close();
+
+        long buildStart = System.nanoTime();
+        JsonUtil warmUtil = JsonUtil.builder()
+                .warmUp(TestUtil.Book.class)
+                .warmUp(new TypeReference<List<TestUtil.Book>>() {
+                })
+                .setWarmUpParallelism(2)
+                .build();
+        log.info("预热构建耗时 {} 微秒，各类型 {}", (System.nanoTime() - buildStart) / 1000, warmUtil.getWarmUpCosts());
+        warmUtil.objToJson(warmUtil.jsonToObj(json, Map.class));
+        start = System.nanoTime();
+        warmUtil.objToJson(warmUtil.jsonToObj(json, TestUtil.Book.class));
+        warmUtil.jsonToObj(listJson, new TypeReference<List<TestUtil.Book>>() {
+        });
+        log.info("预热后首次调用耗时 {} 微秒", (System.nanoTime() - start) / 1000);
+        warmUtil.close();
+    }
+
+    @Test
+    void t005() {
+        // 多租户场景：共用一个实例，对比每次调用的耗时
+        JsonUtil jsonUtil = JsonUtil.builder().build();
+        Map<String, Object> m = new HashMap<>();
+        m.put("date", new Date(0));
+        m.put("localDateTime", LocalDateTime.of(2025, 7, 9, 15, 19, 49));
+        ZoneId[] zones = {ZoneId.of("Asia/Shanghai"), ZoneId.of("Europe/Berlin"), ZoneId.of("America/New_York")};
+        long start = System.currentTimeMillis();
+        for (int i = 0; i < 300000; i++) {
+            jsonUtil.objToJsonInZone(m, zones[i % zones.length]);
+        }
+        log.info("按调用指定时区序列化 30 万次耗时 {} ms", System.currentTimeMillis() - start);
+        jsonUtil.close();
+    }
+
+    @Test
+    void t006() throws Exception {
+        JsonUtil jsonUtil = JsonUtil.builder().build();
+        // 大数组：列式读取与 readTree、jsonToObj 的内存占用对比
+        File file = File.createTempFile("books", ".json");
+        file.deleteOnExit();
+        int count = 500000;
+        try (JsonArrayWriter writer = jsonUtil.arrayWriter().wrapper("/library/books").open(file)) {
+            for (long i = 0; i < count; i++) {
+                TestUtil.Book book = new TestUtil.Book();
+                book.setId(i);
+                book.setTitle("title" + (i % 100));
+                book.setPrice(i % 1000 / 10.0);
+                writer.write(book);
+            }
+        }
+        long start = System.currentTimeMillis();
+        long columnBytes = retainedBytes(() -> jsonUtil.columnReader("/library/books")
+                .longColumn("id").stringColumn("title").doubleColumn("price").read(file));
+        log.info("列式读取耗时 {} ms（含 GC）", System.currentTimeMillis() - start);
+        long treeBytes = retainedBytes(() -> jsonUtil.readTree(file));
+        long objBytes = retainedBytes(() -> jsonUtil.jsonToObj(FileUtil.readUtf8String(file),
+                new TypeReference<Map<String, Map<String, List<TestUtil.Book>>>>() {
+                }));
+        log.info("内存占用：列式 {} KB，readTree {} KB，jsonToObj {} KB", columnBytes / 1024, treeBytes / 1024, objBytes / 1024);
+        jsonUtil.close();
+    }
+
+    @Test
+    void t007() throws Exception {
+        JsonUtil jsonUtil = JsonUtil.builder().build();
+        // 大文档：路径复制与深复制后修改的更新代价对比
+        ObjectNode big = jsonUtil.createObjectNode();
+        for (int i = 0; i < 1000; i++) {
+            ObjectNode group = big.putObject("g" + i);
+            for (int j = 0; j < 100; j++) {
+                group.put("k" + j, i * j);
+            }
+        }
+        PersistentJsonTree tree = jsonUtil.persistentTree(big);
+        int updates = 1000;
+        long start = System.nanoTime();
+        for (int i = 0; i < updates; i++) {
+            tree = tree.set("/g" + (i % 1000) + "/k0", i);
+        }
+        log.info("路径复制更新 {} 次耗时 {} ms", updates, (System.nanoTime() - start) / 1000000);
+        JsonNode copy = big;
+        start = System.nanoTime();
+        for (int i = 0; i < updates; i++) {
+            copy = copy.deepCopy();
+            jsonUtil.setValueByJsonPtrExpr(copy, "/g" + (i % 1000) + "/k0", i);
+        }
+        log.info("深复制后修改 {} 次耗时 {} ms", updates, (System.nanoTime() - start) / 1000000);
+
+        // 多线程无锁读取，同时有一个线程持续更新
+        AtomicReference<PersistentJsonTree> ref = new AtomicReference<>(tree);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<Future<Long>> futures = new ArrayList<>();
+        for (int t = 0; t < 3; t++) {
+            futures.add(executor.submit(() -> {
+                long reads = 0;
+                for (int i = 0; i < 1000000; i++) {
+                    if (ref.get().get("/g" + (i % 1000) + "/k1").isNumber()) {
+                        reads++;
+                    }
+                }
+                return reads;
+            }));
+        }
+        Future<?> writer = executor.submit(() -> {
+            for (int i = 0; i < 10000; i++) {
+                int n = i;
+                ref.updateAndGet(current -> current.set("/g" + (n % 1000) + "/k0", n));
+            }
+        });
+        writer.get();
+        for (Future<Long> future : futures) {
+            log.info("读取成功 {} 次", future.get());
+        }
+        executor.shutdown();
+        log.info("最终 /g999/k0 {}", ref.get().get("/g999/k0"));
+        jsonUtil.close();
+    }
+
+    @Test
+    void t008() throws Exception {
+        // 普通、GZIP、GZIP 流水线解压的读取吞吐量
+        JsonUtil jsonUtil = JsonUtil.builder().build();
+        JsonUtil pipelined = JsonUtil.builder().enablePipelinedDecompression().build();
+        File raw = File.createTempFile("books", ".json");
+        File gz = File.createTempFile("books", ".json.gz");
+        File zz = File.createTempFile("books", ".json.zz");
+        raw.deleteOnExit();
+        gz.deleteOnExit();
+        zz.deleteOnExit();
+
+        // 按扩展名压缩输出
+        int count = 500000;
+        for (File file : new File[]{raw, gz, zz}) {
+            long start = System.nanoTime();
+            try (JsonArrayWriter writer = jsonUtil.arrayWriter().wrapper("/library/books").open(file)) {
+                for (long i = 0; i < count; i++) {
+                    TestUtil.Book book = new TestUtil.Book();
+                    book.setId(i);
+                    book.setTitle("title" + (i % 100));
+                    book.setPrice(i % 1000 / 10.0);
+                    writer.write(book);
+                }
+            }
+            log.info("写入 {} 耗时 {} ms，文件大小 {} KB", file.getName(), (System.nanoTime() - start) / 1000000, file.length() / 1024);
+        }
+
+        // 吞吐量：按解压后的字节数计算
+        double mb = raw.length() / 1024.0 / 1024.0;
+        for (int round = 0; round < 3; round++) {
+            for (Object[] c : new Object[][]{{"普通", jsonUtil, raw}, {"gzip", jsonUtil, gz}, {"gzip 流水线", pipelined, gz}}) {
+                JsonUtil util = (JsonUtil) c[1];
+                File file = (File) c[2];
+                long start = System.nanoTime();
+                util.columnReader("/library/books").longColumn("id").doubleColumn("price").read(file);
+                double columnSeconds = (System.nanoTime() - start) / 1e9;
+                start = System.nanoTime();
+                util.readTree(file);
+                double treeSeconds = (System.nanoTime() - start) / 1e9;
+                log.info("第 {} 轮 {}：columnReader {} MB/s，readTree {} MB/s", round, c[0],
+                        (long) (mb / columnSeconds), (long) (mb / treeSeconds));
+            }
+        }
+        pipelined.close();
+        jsonUtil.close();
+    }
+
+    @Test
+    void t009() throws Exception {
+        JsonUtil jsonUtil = JsonUtil.builder().build();
+        File raw = File.createTempFile("books", ".json");
+        raw.deleteOnExit();
+        List<TestUtil.Book> books = new ArrayList<>();
+        for (long i = 0; i < 200000; i++) {
+            TestUtil.Book book = new TestUtil.Book();
+            book.setId(i);
+            book.setTitle("title" + (i % 100));
+            book.setPrice(i % 1000 / 10.0);
+            books.add(book);
+        }
+        try (JsonArrayWriter writer = jsonUtil.arrayWriter().open(raw)) {
+            writer.writeAll(books);
+        }
+
+        // 流式摘要与先生成字符串再计算摘要的耗时、分配对比
+        MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+        for (int round = 0; round < 3; round++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < 5; i++) {
+                sha256.digest(jsonUtil.objToJson(books).getBytes(StandardCharsets.UTF_8));
+            }
+            long stringMillis = (System.nanoTime() - start) / 1000000;
+            start = System.nanoTime();
+            for (int i = 0; i < 5; i++) {
+                jsonUtil.hash(books);
+            }
+            long hashMillis = (System.nanoTime() - start) / 1000000;
+            start = System.nanoTime();
+            for (int i = 0; i < 5; i++) {
+                jsonUtil.hash(raw);
+            }
+            log.info("第 {} 轮 5 次：objToJson+SHA-256 {} ms（字段顺序不稳定），hash(Object) {} ms，hash(File) {} ms",
+                    round, stringMillis, hashMillis, (System.nanoTime() - start) / 1000000);
+        }
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        long before = threads.getThreadAllocatedBytes(threadId);
+        sha256.digest(jsonUtil.objToJson(books).getBytes(StandardCharsets.UTF_8));
+        long stringBytes = threads.getThreadAllocatedBytes(threadId) - before;
+        before = threads.getThreadAllocatedBytes(threadId);
+        jsonUtil.hash(books);
+        log.info("单次分配：objToJson+SHA-256 {} KB，hash(Object) {} KB", stringBytes / 1024,
+                (threads.getThreadAllocatedBytes(threadId) - before) / 1024);
+        jsonUtil.close();
+    }
+
+    @Test
+    void t010() {
+        // 编译期生成的处理器、标准反射方式与 Blackbird 的往返耗时对比
+        TestUtil.Order order = TestUtil.newOrder();
+        // 日期反序列化器依次尝试多种格式，耗时远大于属性分派，对比时不设置日期
+        order.setCreateTime(null);
+        order.setPayDate(null);
+        JsonUtil standardUtil = JsonUtil.builder().disableCompiledCodecs().build();
+        JsonUtil blackbirdUtil = JsonUtil.builder().disableCompiledCodecs().build();
+        blackbirdUtil.getObjectMapper().registerModule(new BlackbirdModule());
+        JsonUtil compiledUtil = JsonUtil.builder().build();
+        int count = 200000;
+        for (int round = 0; round < 5; round++) {
+            log.info("第 {} 轮 {} 次往返：标准 {} ms，Blackbird {} ms，生成 {} ms", round, count,
+                    roundTrip(standardUtil, order, count), roundTrip(blackbirdUtil, order, count),
+                    roundTrip(compiledUtil, order, count));
+        }
+        standardUtil.close();
+        blackbirdUtil.close();
+        compiledUtil.close();
+    }
+
+    private long roundTrip(JsonUtil jsonUtil, TestUtil.Order order, int count) {
+        long start = System.nanoTime();
+        for (int i = 0; i < count; i++) {
+            jsonUtil.jsonToObj(jsonUtil.objToJson(order), TestUtil.Order.class);
+        }
+        return (System.nanoTime() - start) / 1000000;
+    }
+
+    /**
+     * 执行前后各做一次 GC，返回结果对象保留的堆内存字节数（近似值）
+     */
+    private long retainedBytes(Supplier<Object> supplier) {
+        Runtime runtime = Runtime.getRuntime();
+        System.gc();
+        long before = runtime.totalMemory() - runtime.freeMemory();
+        Object retained = supplier.get();
+        System.gc();
+        long after = runtime.totalMemory() - runtime.freeMemory();
+        log.debug("{}", retained.hashCode());
+        return after - before;
+    }
+}
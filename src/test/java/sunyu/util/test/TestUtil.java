@@ -1,14 +1,61 @@
 package sunyu.util.test;
 
+import cn.hutool.core.util.HexUtil;
 import cn.hutool.log.Log;
 import cn.hutool.log.LogFactory;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import com.fasterxml.jackson.databind.type.TypeFactory;
+import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
+import sunyu.util.CompressionType;
+import sunyu.util.JsonArrayWriter;
+import sunyu.util.JsonColumns;
+import sunyu.util.JsonCompiled;
 import sunyu.util.JsonUtil;
+import sunyu.util.PersistentJsonTree;
+import sunyu.util.RecyclerPoolStats;
+import sunyu.util.RecyclerPoolType;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 
 public class TestUtil {
     private final Log log = LogFactory.get();
@@ -182,4 +229,1119 @@ public class TestUtil {
         jsonUtil.close();
     }
 
-}
\ No newline at end of file
+    @Test
+    void t005() {
+        JsonUtil jsonUtil = JsonUtil.builder().build();
+        JsonNode source = jsonUtil.readTree("{\"library\":{\"name\":\"a/b\",\"books\":[" +
+                "{\"id\":1,\"title\":\"Java编程思想\",\"price\":108}," +
+                "{\"id\":2,\"title\":\"深入理解Java虚拟机\",\"price\":89}," +
+                "{\"id\":3,\"title\":\"Effective Java\",\"price\":79}]}}");
+        JsonNode target = jsonUtil.readTree("{\"library\":{\"name\":\"a/b\",\"books\":[" +
+                "{\"id\":3,\"title\":\"Effective Java\",\"price\":69}," +
+                "{\"id\":1,\"title\":\"Java编程思想\",\"price\":108}," +
+                "{\"id\":4,\"title\":\"Java并发编程实战\",\"price\":99}]},\"a~b\":true,\"c/d\":1}");
+
+        // 按位置比较，字段名中的 ~ 和 / 分别转义为 ~0 和 ~1
+        Assertions.assertEquals(jsonUtil.readTree("[" +
+                "{\"op\":\"replace\",\"path\":\"/library/books/0/id\",\"value\":3}," +
+                "{\"op\":\"replace\",\"path\":\"/library/books/0/title\",\"value\":\"Effective Java\"}," +
+                "{\"op\":\"replace\",\"path\":\"/library/books/0/price\",\"value\":69}," +
+                "{\"op\":\"replace\",\"path\":\"/library/books/1/id\",\"value\":1}," +
+                "{\"op\":\"replace\",\"path\":\"/library/books/1/title\",\"value\":\"Java编程思想\"}," +
+                "{\"op\":\"replace\",\"path\":\"/library/books/1/price\",\"value\":108}," +
+                "{\"op\":\"replace\",\"path\":\"/library/books/2/id\",\"value\":4}," +
+                "{\"op\":\"replace\",\"path\":\"/library/books/2/title\",\"value\":\"Java并发编程实战\"}," +
+                "{\"op\":\"replace\",\"path\":\"/library/books/2/price\",\"value\":99}," +
+                "{\"op\":\"add\",\"path\":\"/a~0b\",\"value\":true}," +
+                "{\"op\":\"add\",\"path\":\"/c~1d\",\"value\":1}]"), jsonUtil.diff(source, target));
+        // 按 id 匹配数组元素：删除 id=2，id=3 移到开头后修改价格，追加 id=4
+        Assertions.assertEquals(jsonUtil.readTree("[" +
+                "{\"op\":\"remove\",\"path\":\"/library/books/1\"}," +
+                "{\"op\":\"move\",\"from\":\"/library/books/1\",\"path\":\"/library/books/0\"}," +
+                "{\"op\":\"replace\",\"path\":\"/library/books/0/price\",\"value\":69}," +
+                "{\"op\":\"add\",\"path\":\"/library/books/2\",\"value\":" +
+                "{\"id\":4,\"title\":\"Java并发编程实战\",\"price\":99}}," +
+                "{\"op\":\"add\",\"path\":\"/a~0b\",\"value\":true}," +
+                "{\"op\":\"add\",\"path\":\"/c~1d\",\"value\":1}]"), jsonUtil.diff(source, target, "id"));
+        // 主键不唯一时退回按位置比较
+        JsonNode duplicated = jsonUtil.readTree("[{\"id\":1,\"v\":1},{\"id\":1,\"v\":2}]");
+        Assertions.assertEquals(jsonUtil.readTree("[{\"op\":\"remove\",\"path\":\"/1\"}]"),
+                jsonUtil.diff(duplicated, jsonUtil.readTree("[{\"id\":1,\"v\":1}]"), "id"));
+        // 相同内容
+        Assertions.assertEquals(0, jsonUtil.diff(source, source.deepCopy()).size());
+        jsonUtil.close();
+    }
+
+    @Test
+    void t006() throws Exception {
+        JsonUtil jsonUtil = JsonUtil.builder().build();
+        File source = File.createTempFile("diff-source", ".json");
+        File target = File.createTempFile("diff-target", ".json");
+        source.deleteOnExit();
+        target.deleteOnExit();
+        Files.write(source.toPath(), ("{\"a\":1,\"list\":[1,2,3],\"obj\":{\"x\":1,\"y\":2}," +
+                "\"tail\":[{\"k\":1}],\"e~/f\":1}").getBytes(StandardCharsets.UTF_8));
+        Files.write(target.toPath(), ("{\"a\":2,\"list\":[1,2,3,4,5],\"obj\":{\"y\":2,\"x\":3}," +
+                "\"tail\":[],\"e~/f\":2}").getBytes(StandardCharsets.UTF_8));
+        ArrayNode patch = jsonUtil.createArrayNode();
+        Assertions.assertTrue(jsonUtil.diff(source, target, patch::add));
+        Assertions.assertEquals(jsonUtil.readTree("[" +
+                "{\"op\":\"replace\",\"path\":\"/a\",\"value\":2}," +
+                "{\"op\":\"add\",\"path\":\"/list/3\",\"value\":4}," +
+                "{\"op\":\"add\",\"path\":\"/list/4\",\"value\":5}," +
+                "{\"op\":\"replace\",\"path\":\"/obj/x\",\"value\":3}," +
+                "{\"op\":\"remove\",\"path\":\"/tail/0\"}," +
+                "{\"op\":\"replace\",\"path\":\"/e~0~1f\",\"value\":2}]"), patch);
+        // 流式比较与内存中比较的结果一致
+        Assertions.assertEquals(jsonUtil.diff(jsonUtil.readTree(source), jsonUtil.readTree(target)), patch);
+        jsonUtil.close();
+    }
+
+    @Test
+    void t007() {
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < 1000; i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append("{\"userId\":\"").append(i).append("\",\"roles\":\"超级管理员\",")
+                    .append("\"orgName\":\"洋马农机（中国）有限公司\",\"tenantId\":\"").append(i % 8)
+                    .append("\",\"status\":\"").append(i % 2 == 0 ? "ENABLED" : "DISABLED").append("\"}");
+        }
+        sb.append(']');
+        String json = sb.toString();
+
+        JsonUtil plain = JsonUtil.builder().build();
+        JsonUtil dedup = JsonUtil.builder().enableDeduplication().build();
+
+        // 去重不改变内容，重复的字符串值共享同一个实例
+        JsonNode plainTree = plain.readTree(json);
+        JsonNode dedupTree = dedup.readTree(json);
+        Assertions.assertEquals(plainTree, dedupTree);
+        Assertions.assertNotSame(plainTree.get(0).get("roles"), plainTree.get(1).get("roles"));
+        Assertions.assertSame(dedupTree.get(0).get("roles"), dedupTree.get(1).get("roles"));
+        Assertions.assertSame(dedupTree.get(0).get("tenantId"), dedupTree.get(8).get("tenantId"));
+        Assertions.assertNotSame(dedupTree.get(0).get("userId"), dedupTree.get(1).get("userId"));
+
+        List<Map<String, String>> plainList = plain.jsonToObj(json, new TypeReference<List<Map<String, String>>>() {
+        });
+        List<Map<String, String>> dedupList = dedup.jsonToObj(json, new TypeReference<List<Map<String, String>>>() {
+        });
+        Assertions.assertEquals(plainList, dedupList);
+        Assertions.assertNotSame(plainList.get(0).get("orgName"), plainList.get(1).get("orgName"));
+        Assertions.assertSame(dedupList.get(0).get("orgName"), dedupList.get(1).get("orgName"));
+        Assertions.assertSame(dedupList.get(0).get("status"), dedupList.get(2).get("status"));
+
+        // 超过长度上限的字符串不参与去重
+        JsonUtil shortOnly = JsonUtil.builder().enableDeduplication(16, 4).build();
+        JsonNode shortTree = shortOnly.readTree(json);
+        Assertions.assertNotSame(shortTree.get(0).get("roles"), shortTree.get(1).get("roles"));
+
+        plain.close();
+        dedup.close();
+        shortOnly.close();
+    }
+
+    @Test
+    void t008() {
+        JsonUtil jsonUtil = JsonUtil.builder().build();
+        String json = "{\"status\":0,\"end\":\"2025-07-09 15:19:49\",\"data\":{\"token\":\"d10a0b2f\"," +
+                "\"realName\":\"洋马农业超级管理员\",\"roleIds\":[\"4\"]}," +
+                "\"books\":[{\"id\":1,\"title\":\"Java编程思想\",\"price\":108}," +
+                "{\"id\":2,\"title\":\"深入理解Java虚拟机\",\"price\":89}]}";
+        Map<String, Object> m = jsonUtil.jsonToObj(json, new TypeReference<Map<String, Object>>() {
+        });
+        // 只输出部分字段，数组元素使用同一投影
+        Assertions.assertEquals("{\"status\":0,\"data\":{\"token\":\"d10a0b2f\"}," +
+                        "\"books\":[{\"title\":\"Java编程思想\"},{\"title\":\"深入理解Java虚拟机\"}]}",
+                jsonUtil.objToJson(m, "status", "data.token", "books.title"));
+        // 选中整个字段
+        Assertions.assertEquals("{\"data\":{\"token\":\"d10a0b2f\",\"realName\":\"洋马农业超级管理员\",\"roleIds\":[\"4\"]}}",
+                jsonUtil.objToJson(m, "data"));
+        // 未指定字段时输出全部
+        Assertions.assertEquals(jsonUtil.readTree(json), jsonUtil.readTree(jsonUtil.objToJson(m)));
+
+        // Bean 同样生效，投影后常规序列化不受影响
+        Book book = new Book();
+        book.setId(1L);
+        book.setTitle("Effective Java");
+        book.setPrice(79.0);
+        Assertions.assertEquals("{\"id\":\"1\",\"title\":\"Effective Java\"}", jsonUtil.objToJson(book, "id", "title"));
+        Assertions.assertEquals("{\"id\":\"1\",\"title\":\"Effective Java\",\"price\":79.0}", jsonUtil.objToJson(book));
+
+        // 字段名包含逗号时与其它字段集合不冲突
+        Map<String, Object> comma = new LinkedHashMap<>();
+        comma.put("a,b", 1);
+        comma.put("a", 2);
+        comma.put("b", 3);
+        Assertions.assertEquals("{\"a,b\":1}", jsonUtil.objToJson(comma, "a,b"));
+        Assertions.assertEquals("{\"a\":2,\"b\":3}", jsonUtil.objToJson(comma, "a", "b"));
+
+        // 投影不修改 getObjectMapper() 的配置，调用方设置的 FilterProvider 不会收到投影过滤器 ID
+        Assertions.assertNull(jsonUtil.getObjectMapper().getSerializationConfig().getFilterProvider());
+        jsonUtil.getObjectMapper().setFilterProvider(new SimpleFilterProvider());
+        Assertions.assertEquals("{\"id\":\"1\",\"title\":\"Effective Java\",\"price\":79.0}", jsonUtil.objToJson(book));
+        Assertions.assertEquals("{\"title\":\"Effective Java\"}", jsonUtil.objToJson(book, "title"));
+        jsonUtil.close();
+    }
+
+    @Test
+    void t009() throws Exception {
+        JsonUtil jsonUtil = JsonUtil.builder().build();
+        String json = "{\"showVerification\":false,\"platformUrl\":null,\"data\":{" +
+                "\"token\":\"d10a0b2fd9a9437397a0543a3a08a90b\",\"realName\":\"洋马农业超级管理员\"," +
+                "\"roleIds\":[\"4\"],\"userId\":\"4\",\"tenantId\":\"4\"},\"status\":0,\"price\":1.10," +
+                "\"trace\":null}";
+
+        // 删除、重命名、掩码、脱敏，数值按原文输出
+        Assertions.assertEquals("{\"showVerification\":false,\"data\":{" +
+                        "\"token\":\"d10a************************a90b\",\"name\":\"洋马农业超级管理员\"," +
+                        "\"roleIds\":\"******\",\"userId\":\"4\",\"tenantId\":\"4\"},\"status\":0,\"price\":1.10}",
+                jsonUtil.transformer()
+                        .exclude("/trace", "/platformUrl")
+                        .rename("/data/realName", "name")
+                        .mask("/data/token", 4, 4)
+                        .redact("/data/roleIds")
+                        .transform(json));
+
+        // 只保留指定路径，* 匹配任意数组元素
+        Assertions.assertEquals("{\"library\":{\"books\":[{\"title\":\"Java编程思想\"},{\"title\":\"Effective Java\"}]}}",
+                jsonUtil.transformer()
+                        .include("/library/books/*/title")
+                        .transform("{\"library\":{\"name\":\"x\",\"books\":[{\"id\":1,\"title\":\"Java编程思想\"}," +
+                                "{\"id\":2,\"title\":\"Effective Java\"}]}}"));
+
+        // 文件到文件，格式化输出，掩码对象下所有非 null 标量值
+        File in = File.createTempFile("transform-in", ".json");
+        File out = File.createTempFile("transform-out", ".json");
+        in.deleteOnExit();
+        out.deleteOnExit();
+        Files.write(in.toPath(), json.getBytes(StandardCharsets.UTF_8));
+        Assertions.assertTrue(jsonUtil.transformer().mask("/data", 1, 0).pretty().transform(in, out));
+        String transformed = new String(Files.readAllBytes(out.toPath()), StandardCharsets.UTF_8);
+        Assertions.assertTrue(transformed.contains("\n"));
+        Assertions.assertEquals(jsonUtil.readTree("{\"showVerification\":false,\"platformUrl\":null,\"data\":{" +
+                "\"token\":\"d*******************************\",\"realName\":\"洋********\"," +
+                "\"roleIds\":[\"*\"],\"userId\":\"*\",\"tenantId\":\"*\"},\"status\":0,\"price\":1.10," +
+                "\"trace\":null}"), jsonUtil.readTree(transformed));
+        jsonUtil.close();
+    }
+
+    @Test
+    void t010() throws Exception {
+        JsonUtil jsonUtil = JsonUtil.builder().build();
+        String json = "{\"library\":{\"books\":[" +
+                "{\"id\":1,\"title\":\"Java编程思想\",\"price\":108}," +
+                "{\"id\":2,\"title\":\"深入理解Java虚拟机\",\"price\":89}," +
+                "{\"id\":3,\"title\":\"Effective Java\",\"price\":79}]}}";
+        JsonNode root = jsonUtil.readTree(json);
+
+        // 通配符，替代循环拼接 "/library/books/" + i + "/title"
+        Assertions.assertEquals(jsonUtil.readTree("[\"Java编程思想\",\"深入理解Java虚拟机\",\"Effective Java\"]"),
+                jsonUtil.createArrayNode().addAll(jsonUtil.query(root, "/library/books/*/title")));
+        // 条件，不以 / 开头时在任意层级查找
+        Assertions.assertEquals(jsonUtil.readTree("[{\"id\":1,\"title\":\"Java编程思想\",\"price\":108}," +
+                        "{\"id\":2,\"title\":\"深入理解Java虚拟机\",\"price\":89}]"),
+                jsonUtil.createArrayNode().addAll(jsonUtil.query(root, "books[?price>80]")));
+        Assertions.assertEquals(jsonUtil.readTree("[3]"),
+                jsonUtil.createArrayNode().addAll(jsonUtil.query(root, "books[?title=='Effective Java']/id")));
+        // 递归下降
+        Assertions.assertEquals(jsonUtil.readTree("[108,89,79]"),
+                jsonUtil.createArrayNode().addAll(jsonUtil.query(root, "/**/price")));
+        // 切片与负数索引
+        Assertions.assertEquals(jsonUtil.readTree("[1,2]"),
+                jsonUtil.createArrayNode().addAll(jsonUtil.query(root, "/library/books[0:2]/id")));
+        Assertions.assertEquals(jsonUtil.readTree("[\"Effective Java\"]"),
+                jsonUtil.createArrayNode().addAll(jsonUtil.query(root, "/library/books[-1]/title")));
+        // 表达式为空或语法错误
+        Assertions.assertThrows(IllegalArgumentException.class, () -> jsonUtil.compileQuery(null));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> jsonUtil.query(root, null));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> jsonUtil.query(root, "/library/books[0"));
+
+        // 流式执行与在树上执行的结果一致
+        File file = File.createTempFile("query", ".json");
+        file.deleteOnExit();
+        Files.write(file.toPath(), json.getBytes(StandardCharsets.UTF_8));
+        for (String expression : new String[]{"/library/books/*/title", "books[?price<100]/title", "/library/books[1:]",
+                "/**/id", "[?price>80]", "/library/books/-1"}) {
+            List<JsonNode> streamed = new ArrayList<>();
+            Assertions.assertTrue(jsonUtil.query(file, expression, streamed::add));
+            Assertions.assertEquals(jsonUtil.query(root, expression), streamed, expression);
+        }
+        Assertions.assertEquals(2, jsonUtil.query(root, "books[?price<100]/title").size());
+        // 参数无效时返回 false
+        Assertions.assertFalse(jsonUtil.query(file, "/**/id", null));
+        Assertions.assertFalse(jsonUtil.query(new File(file.getPath() + ".missing"), "/**/id", streamed -> {
+        }));
+        jsonUtil.close();
+    }
+
+    @Test
+    void t011() throws Exception {
+        String json = "{\"library\":{\"books\":[" +
+                "{\"id\":1,\"title\":\"Java编程思想\",\"price\":108}," +
+                "{\"id\":2,\"title\":\"深入理解Java虚拟机\",\"price\":89}," +
+                "{\"id\":3,\"title\":\"Effective Java\",\"price\":79}]}}";
+        for (RecyclerPoolType type : RecyclerPoolType.values()) {
+            JsonUtil jsonUtil = JsonUtil.builder().setRecyclerPool(type, 4).build();
+            JsonNode expected = jsonUtil.readTree(json);
+            ExecutorService executor = Executors.newFixedThreadPool(4);
+            List<Future<String>> futures = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                futures.add(executor.submit(() -> jsonUtil.objToJson(jsonUtil.readTree(json))));
+            }
+            for (Future<String> future : futures) {
+                Assertions.assertEquals(expected, jsonUtil.readTree(future.get()));
+            }
+            executor.shutdown();
+            Assertions.assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+            RecyclerPoolStats stats = jsonUtil.getRecyclerPoolStats();
+            Assertions.assertEquals(type, stats.getType());
+            Assertions.assertTrue(stats.getAcquired() >= 400, stats.toString());
+            if (type == RecyclerPoolType.THREAD_LOCAL) {
+                Assertions.assertEquals(-1, stats.getCreated());
+                Assertions.assertEquals(-1, stats.getPooled());
+            } else {
+                // 全部归还，缓冲区只在并发使用时新建
+                Assertions.assertEquals(0, stats.getInUse(), stats.toString());
+                Assertions.assertTrue(stats.getPooled() > 0, stats.toString());
+                Assertions.assertTrue(stats.getHitRate() > 0.5, stats.toString());
+            }
+            jsonUtil.close();
+            if (type != RecyclerPoolType.THREAD_LOCAL) {
+                Assertions.assertEquals(0, jsonUtil.getRecyclerPoolStats().getPooled());
+            }
+        }
+        JsonUtil defaultUtil = JsonUtil.builder().build();
+        Assertions.assertNull(defaultUtil.getRecyclerPoolStats());
+        defaultUtil.close();
+        Assertions.assertThrows(IllegalArgumentException.class, () -> JsonUtil.builder().setRecyclerPool(null));
+    }
+
+    @Test
+    void t012() throws Exception {
+        JsonUtil jsonUtil = JsonUtil.builder().build();
+        File file = File.createTempFile("books", ".json");
+        file.deleteOnExit();
+
+        // 同步写入，外层包装 {"library":{"books":[...]}}
+        try (JsonArrayWriter writer = jsonUtil.arrayWriter().wrapper("/library/books").flushEvery(1000).open(file)) {
+            for (long i = 1; i <= 3; i++) {
+                Book book = new Book();
+                book.setId(i);
+                book.setTitle("第" + i + "本");
+                book.setPrice(10.5 * i);
+                writer.write(book);
+            }
+            Assertions.assertEquals(3, writer.getCount());
+        }
+        Assertions.assertEquals("{\"library\":{\"books\":[" +
+                        "{\"id\":\"1\",\"title\":\"第1本\",\"price\":10.5}," +
+                        "{\"id\":\"2\",\"title\":\"第2本\",\"price\":21.0}," +
+                        "{\"id\":\"3\",\"title\":\"第3本\",\"price\":31.5}]}}",
+                new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8));
+
+        // 异步写入，队列远小于元素数量，tryWrite 在下游跟得上时不会被拒绝
+        int count = 10000;
+        try (JsonArrayWriter writer = jsonUtil.arrayWriter().queueCapacity(16).flushBytes(1 << 16).open(file)) {
+            for (long i = 0; i < count; i++) {
+                Book book = new Book();
+                book.setId(i);
+                book.setTitle("title" + i);
+                Assertions.assertTrue(writer.tryWrite(book, 10, TimeUnit.SECONDS));
+            }
+            writer.flush();
+            Assertions.assertEquals(count, writer.getCount());
+        }
+        JsonNode tree = jsonUtil.readTree(file);
+        Assertions.assertEquals(count, tree.size());
+        Assertions.assertEquals(count - 1, tree.get(count - 1).get("id").asLong());
+
+        // 元素序列化失败后不补全数组结尾，close 抛出最初的异常
+        for (Integer capacity : new Integer[]{null, 4}) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            JsonArrayWriter.Builder builder = jsonUtil.arrayWriter();
+            if (capacity != null) {
+                builder.queueCapacity(capacity);
+            }
+            JsonArrayWriter writer = builder.open(out);
+            Book book = new Book();
+            book.setId(1L);
+            writer.write(book);
+            Map<Object, Object> broken = new HashMap<>();
+            broken.put(null, "空键");
+            try {
+                writer.write(broken);
+            } catch (IOException e) {
+                // 同步模式在 write 中直接失败
+            }
+            IOException error = Assertions.assertThrows(IOException.class, writer::close);
+            log.info("写入失败 {}", error.getMessage());
+            String written = new String(out.toByteArray(), StandardCharsets.UTF_8);
+            Assertions.assertTrue(written.startsWith("[{\"id\":\"1\""), written);
+            Assertions.assertFalse(written.endsWith("]"), written);
+        }
+
+        // 输出目标抛出非受检异常时，后台线程不会静默退出，close 不会阻塞
+        OutputStream failing = new OutputStream() {
+            @Override
+            public void write(int b) {
+                throw new IllegalStateException("磁盘已满");
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+                throw new IllegalStateException("磁盘已满");
+            }
+        };
+        JsonArrayWriter writer = jsonUtil.arrayWriter().queueCapacity(1).flushEvery(1).open(failing);
+        Assertions.assertThrows(IOException.class, () -> {
+            for (long i = 0; i < 100; i++) {
+                Book book = new Book();
+                book.setId(i);
+                writer.write(book);
+            }
+        });
+        IOException error = Assertions.assertThrows(IOException.class, writer::close);
+        Assertions.assertTrue(error.getCause() instanceof IllegalStateException);
+
+        // close 被中断时等待后台线程退出后才访问生成器
+        CountDownLatch release = new CountDownLatch(1);
+        ByteArrayOutputStream slowTarget = new ByteArrayOutputStream();
+        OutputStream slow = new OutputStream() {
+            @Override
+            public void write(int b) {
+                write(new byte[]{(byte) b}, 0, 1);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+                // 模拟阻塞在 I/O 上且不响应中断的下游，写完后保留中断状态
+                boolean interrupted = false;
+                while (release.getCount() > 0) {
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        interrupted = true;
+                    }
+                }
+                slowTarget.write(b, off, len);
+                if (interrupted) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+        JsonArrayWriter slowWriter = jsonUtil.arrayWriter().queueCapacity(4).flushEvery(1).open(slow);
+        Book book = new Book();
+        book.setId(1L);
+        slowWriter.write(book);
+        AtomicReference<Throwable> closeError = new AtomicReference<>();
+        AtomicBoolean interruptRestored = new AtomicBoolean();
+        Thread closer = new Thread(() -> {
+            try {
+                slowWriter.close();
+            } catch (Throwable e) {
+                closeError.set(e);
+            }
+            interruptRestored.set(Thread.currentThread().isInterrupted());
+        });
+        closer.start();
+        Thread.sleep(100);
+        closer.interrupt();
+        closer.join(300);
+        Assertions.assertTrue(closer.isAlive(), "后台线程阻塞时 close 不应返回");
+        release.countDown();
+        closer.join(10000);
+        Assertions.assertFalse(closer.isAlive());
+        Assertions.assertTrue(interruptRestored.get());
+        Assertions.assertTrue(closeError.get() instanceof InterruptedIOException, String.valueOf(closeError.get()));
+        String slowWritten = new String(slowTarget.toByteArray(), StandardCharsets.UTF_8);
+        Assertions.assertEquals("[{\"id\":\"1\"}", slowWritten);
+        jsonUtil.close();
+    }
+
+    @Test
+    void t013() {
+        String json = "{\"id\":1,\"title\":\"Java编程思想\",\"price\":108}";
+        String listJson = "[" + json + "]";
+
+        JsonUtil warmUtil = JsonUtil.builder()
+                .warmUp(Book.class)
+                .warmUp(new TypeReference<List<Book>>() {
+                })
+                .setWarmUpParallelism(2)
+                .build();
+        // 按注册顺序记录各类型耗时
+        Map<String, Long> costs = warmUtil.getWarmUpCosts();
+        TypeFactory typeFactory = TypeFactory.defaultInstance();
+        Assertions.assertEquals(Arrays.asList(
+                        typeFactory.constructType(Book.class).toCanonical(),
+                        typeFactory.constructCollectionType(List.class, Book.class).toCanonical()),
+                new ArrayList<>(costs.keySet()));
+        for (Long cost : costs.values()) {
+            Assertions.assertTrue(cost >= 0);
+        }
+        Assertions.assertThrows(UnsupportedOperationException.class, () -> costs.put("x", 1L));
+
+        // 预热不影响读写结果
+        Book book = warmUtil.jsonToObj(json, Book.class);
+        Assertions.assertEquals(1L, book.getId());
+        Assertions.assertEquals("Java编程思想", book.getTitle());
+        Assertions.assertEquals(108.0, book.getPrice());
+        List<Book> books = warmUtil.jsonToObj(listJson, new TypeReference<List<Book>>() {
+        });
+        Assertions.assertEquals(1, books.size());
+        Assertions.assertEquals("Java编程思想", books.get(0).getTitle());
+        Assertions.assertEquals("{\"id\":\"1\",\"title\":\"Java编程思想\",\"price\":108.0}", warmUtil.objToJson(book));
+        warmUtil.close();
+
+        // 未注册预热类型时为空
+        JsonUtil coldUtil = JsonUtil.builder().build();
+        Assertions.assertTrue(coldUtil.getWarmUpCosts().isEmpty());
+        coldUtil.close();
+
+        // 并行预热时某个类型失败，其余类型仍然等待完成并记录耗时
+        JsonUtil partialUtil = JsonUtil.builder()
+                .warmUp(Book.class, BrokenBean.class)
+                .warmUp(new TypeReference<List<Book>>() {
+                })
+                .setWarmUpParallelism(3)
+                .build();
+        Assertions.assertEquals(Arrays.asList(
+                        typeFactory.constructType(Book.class).toCanonical(),
+                        typeFactory.constructCollectionType(List.class, Book.class).toCanonical()),
+                new ArrayList<>(partialUtil.getWarmUpCosts().keySet()));
+        partialUtil.close();
+
+        Assertions.assertThrows(IllegalArgumentException.class, () -> JsonUtil.builder().setWarmUpParallelism(0));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> JsonUtil.builder().warmUp((Class<?>) null));
+    }
+
+    @Test
+    void t014() throws Exception {
+        Order order = newOrder();
+        order.setRemark("忽略");
+
+        // Order 由注解处理器生成处理器，与标准反射方式的输出一致
+        JsonUtil standardUtil = JsonUtil.builder().setTimeZone("GMT+8").disableCompiledCodecs().build();
+        JsonUtil compiledUtil = JsonUtil.builder().setTimeZone("GMT+8").build();
+        Assertions.assertTrue(serializerOf(compiledUtil, Order.class).endsWith("JsonCodec$Serializer"));
+        Assertions.assertFalse(serializerOf(standardUtil, Order.class).endsWith("JsonCodec$Serializer"));
+        String standardJson = standardUtil.objToJson(order);
+        String compiledJson = compiledUtil.objToJson(order);
+        log.info("生成 {}", compiledJson);
+        Assertions.assertEquals(standardJson, compiledJson);
+        Assertions.assertTrue(compiledJson.contains("\"id\":\"9223372036854775807\""));
+        Assertions.assertTrue(compiledJson.contains("\"orderCode\":\"A-001\""));
+        Assertions.assertFalse(compiledJson.contains("remark"));
+        Order parsed = compiledUtil.jsonToObj(compiledJson, Order.class);
+        Assertions.assertEquals(compiledJson, compiledUtil.objToJson(parsed));
+        Assertions.assertEquals(standardUtil.objToJson(order, "id", "books.title"), compiledUtil.objToJson(order, "id", "books.title"));
+
+        // 子类未标记注解，按类精确匹配，使用标准处理器并保留子类属性
+        VipOrder vipOrder = new VipOrder();
+        vipOrder.setId(1L);
+        vipOrder.setLevel(2);
+        Assertions.assertFalse(serializerOf(compiledUtil, VipOrder.class).endsWith("JsonCodec$Serializer"));
+        Assertions.assertEquals("{\"id\":\"1\",\"count\":0,\"paid\":false,\"level\":2}", compiledUtil.objToJson(vipOrder));
+        Assertions.assertEquals(2, compiledUtil.jsonToObj(compiledUtil.objToJson(vipOrder), VipOrder.class).getLevel());
+
+        // 没有 getter/setter 的 public 字段直接读写，transient 字段不输出
+        Point point = new Point();
+        point.id = 7L;
+        point.x = 3;
+        point.setName("原点");
+        point.books = order.getBooks();
+        point.cache = "缓存";
+        String pointJson = compiledUtil.objToJson(point);
+        Assertions.assertTrue(serializerOf(compiledUtil, Point.class).endsWith("JsonCodec$Serializer"));
+        Assertions.assertEquals(standardUtil.objToJson(point), pointJson);
+        Assertions.assertFalse(pointJson.contains("cache"));
+        Point parsedPoint = compiledUtil.jsonToObj(pointJson, Point.class);
+        Assertions.assertEquals(7L, parsedPoint.id);
+        Assertions.assertEquals(3, parsedPoint.x);
+        Assertions.assertEquals("原点", parsedPoint.getName());
+        Assertions.assertEquals(3, parsedPoint.books.size());
+        Assertions.assertEquals(pointJson, compiledUtil.objToJson(parsedPoint));
+
+        // 配置了混入的类型回退到标准处理器，混入的注解生效
+        JsonUtil mixInUtil = JsonUtil.builder().setTimeZone("GMT+8").build();
+        mixInUtil.getObjectMapper().addMixIn(Order.class, OrderMixIn.class);
+        Assertions.assertFalse(serializerOf(mixInUtil, Order.class).endsWith("JsonCodec$Serializer"));
+        String mixInJson = mixInUtil.objToJson(order);
+        Assertions.assertFalse(mixInJson.contains("\"count\""));
+        Assertions.assertEquals(standardJson.replace("\"count\":3,", ""), mixInJson);
+        Assertions.assertEquals(0, mixInUtil.jsonToObj(compiledJson, Order.class).getCount());
+        standardUtil.close();
+        compiledUtil.close();
+        mixInUtil.close();
+    }
+
+    /**
+     * 测试用订单，包含 Long 字符串、改名、忽略、日期时间和嵌套集合属性
+     */
+    static Order newOrder() {
+        Order order = new Order();
+        order.setId(Long.MAX_VALUE);
+        order.setCount(3);
+        order.setCode("A-001");
+        order.setAmount(99.5);
+        order.setPaid(true);
+        order.setCreateTime(LocalDateTime.of(2025, 7, 9, 15, 19, 49));
+        order.setPayDate(LocalDate.of(2025, 7, 10));
+        List<Book> books = new ArrayList<>();
+        for (long i = 1; i <= 3; i++) {
+            Book book = new Book();
+            book.setId(i);
+            book.setTitle("第" + i + "本");
+            book.setPrice(10.5 * i);
+            books.add(book);
+        }
+        order.setBooks(books);
+        return order;
+    }
+
+    private String serializerOf(JsonUtil jsonUtil, Class<?> type) throws Exception {
+        return jsonUtil.getObjectMapper().getSerializerProviderInstance().findValueSerializer(type).getClass().getName();
+    }
+
+    @Test
+    void t015() {
+        JsonUtil jsonUtil = JsonUtil.builder().build();
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("date", new Date(0));
+        m.put("localDateTime", LocalDateTime.of(2025, 7, 9, 15, 19, 49));
+
+        // 同一个实例按调用指定时区，Date 随时区变化，LocalDateTime 不受影响
+        Assertions.assertEquals("{\"date\":\"1970-01-01 00:00:00\",\"localDateTime\":\"2025-07-09 15:19:49\"}",
+                jsonUtil.objToJson(m));
+        Assertions.assertEquals("{\"date\":\"1970-01-01 08:00:00\",\"localDateTime\":\"2025-07-09 15:19:49\"}",
+                jsonUtil.objToJsonInZone(m, ZoneId.of("Asia/Shanghai")));
+        Assertions.assertEquals("{\"date\":\"1969-12-31 19:00:00\",\"localDateTime\":\"2025-07-09 15:19:49\"}",
+                jsonUtil.objToJsonInZone(m, ZoneId.of("America/New_York")));
+        // 未指定时区时使用构建时的时区
+        Assertions.assertEquals(jsonUtil.objToJson(m), jsonUtil.objToJsonInZone(m, null));
+        // 按调用指定时区不影响默认时区
+        Assertions.assertEquals("{\"date\":\"1970-01-01 00:00:00\",\"localDateTime\":\"2025-07-09 15:19:49\"}",
+                jsonUtil.objToJson(m));
+        // 字段投影的 null 参数不与时区重载冲突
+        Assertions.assertEquals(jsonUtil.objToJson(m), jsonUtil.objToJson(m, (String[]) null));
+
+        String json = "{\"date\":\"1970-01-01 08:00:00\"}";
+        Map<String, Date> utc = jsonUtil.jsonToObj(json, new TypeReference<Map<String, Date>>() {
+        });
+        Map<String, Date> shanghai = jsonUtil.jsonToObj(json, new TypeReference<Map<String, Date>>() {
+        }, ZoneId.of("Asia/Shanghai"));
+        Assertions.assertEquals(8 * 3600 * 1000L, utc.get("date").getTime());
+        Assertions.assertEquals(0L, shanghai.get("date").getTime());
+        Assertions.assertEquals(0L, jsonUtil.jsonToObj("\"1970-01-01 08:00:00\"", Date.class, ZoneId.of("Asia/Shanghai")).getTime());
+        jsonUtil.close();
+    }
+
+    @Test
+    void t016() throws Exception {
+        JsonUtil jsonUtil = JsonUtil.builder().build();
+        String json = "{\"library\":{\"books\":[" +
+                "{\"id\":\"1\",\"title\":\"Java编程思想\",\"price\":108,\"stock\":{\"count\":3}}," +
+                "{\"id\":2,\"title\":\"深入理解Java虚拟机\",\"price\":null}," +
+                "null," +
+                "{\"id\":\"x\",\"title\":\"Java编程思想\",\"price\":79.5,\"stock\":{\"count\":\"7\"}}]}}";
+        JsonColumns columns = jsonUtil.columnReader("/library/books")
+                .longColumn("id").stringColumn("title").doubleColumn("price").intColumn("/stock/count")
+                .read(json);
+        Assertions.assertEquals(4, columns.size());
+        // 数字字符串按数字读取，无法转换的值、null 元素记为 null
+        Assertions.assertArrayEquals(new long[]{1, 2, 0, 0}, columns.getLongs("id"));
+        Assertions.assertEquals(BitSet.valueOf(new long[]{0b1100}), columns.getNulls("id"));
+        // 字符串列按字典编码，相同的值共用一个编码
+        Assertions.assertArrayEquals(new int[]{0, 1, -1, 0}, columns.getStringCodes("title"));
+        Assertions.assertArrayEquals(new String[]{"Java编程思想", "深入理解Java虚拟机"}, columns.getDictionary("title"));
+        Assertions.assertEquals("深入理解Java虚拟机", columns.getString("title", 1));
+        Assertions.assertNull(columns.getString("title", 2));
+        Assertions.assertArrayEquals(new double[]{108, 0, 0, 79.5}, columns.getDoubles("price"));
+        Assertions.assertEquals(BitSet.valueOf(new long[]{0b0110}), columns.getNulls("price"));
+        Assertions.assertArrayEquals(new int[]{3, 0, 0, 7}, columns.getInts("/stock/count"));
+        Assertions.assertTrue(columns.isNull("/stock/count", 1));
+        Assertions.assertFalse(columns.isNull("/stock/count", 3));
+        // 列不存在或类型不符
+        Assertions.assertNull(columns.getLongs("title"));
+        Assertions.assertNull(columns.getInts("stock"));
+
+        // 从文件读取，结果与逐个写入的元素一致
+        File file = File.createTempFile("books", ".json");
+        file.deleteOnExit();
+        int count = 1000;
+        try (JsonArrayWriter writer = jsonUtil.arrayWriter().wrapper("/library/books").open(file)) {
+            for (long i = 0; i < count; i++) {
+                Book book = new Book();
+                book.setId(i);
+                book.setTitle("title" + (i % 100));
+                book.setPrice(i / 10.0);
+                writer.write(book);
+            }
+        }
+        JsonColumns fileColumns = jsonUtil.columnReader("/library/books")
+                .longColumn("id").stringColumn("title").doubleColumn("price").read(file);
+        Assertions.assertEquals(count, fileColumns.size());
+        Assertions.assertEquals(100, fileColumns.getDictionary("title").length);
+        Assertions.assertTrue(fileColumns.getNulls("id").isEmpty());
+        for (int i = 0; i < count; i++) {
+            Assertions.assertEquals(i, fileColumns.getLongs("id")[i]);
+            Assertions.assertEquals("title" + (i % 100), fileColumns.getString("title", i));
+            Assertions.assertEquals(i / 10.0, fileColumns.getDoubles("price")[i]);
+        }
+        jsonUtil.close();
+    }
+
+    @Test
+    void t017() throws Exception {
+        JsonUtil jsonUtil = JsonUtil.builder().build();
+        String json = "{\"library\":{\"books\":[" +
+                "{\"id\":1,\"title\":\"Java编程思想\",\"price\":108}," +
+                "{\"id\":2,\"title\":\"深入理解Java虚拟机\",\"price\":89}]," +
+                "\"shop\":{\"name\":\"书店\"}}}";
+        PersistentJsonTree v1 = jsonUtil.persistentTree(json);
+        PersistentJsonTree v2 = v1.set("/library/books/1/title", "JVM")
+                .set("/library/books/-1/price", 99)
+                .set("/library/tags/2", "java")
+                .set("/library/owner/name", "SunYu");
+        Assertions.assertEquals("JVM", v2.get("/library/books/1/title").asText());
+        // 旧版本不受影响
+        Assertions.assertEquals("深入理解Java虚拟机", v1.get("/library/books/1/title").asText());
+        Assertions.assertEquals(jsonUtil.readTree(json), v1.root());
+        // 未修改的子树被新旧版本共享，修改路径上的节点被复制
+        Assertions.assertSame(v1.get("/library/shop"), v2.get("/library/shop"));
+        Assertions.assertSame(v1.get("/library/books/0"), v2.get("/library/books/0"));
+        Assertions.assertNotSame(v1.get("/library/books/1"), v2.get("/library/books/1"));
+        Assertions.assertNotSame(v1.get("/library"), v2.get("/library"));
+
+        // 与 setValueByJsonPtrExpr 结果一致
+        JsonNode mutable = jsonUtil.readTree(json);
+        jsonUtil.setValueByJsonPtrExpr(mutable, "/library/books/1/title", "JVM");
+        jsonUtil.setValueByJsonPtrExpr(mutable, "/library/books/-1/price", 99);
+        jsonUtil.setValueByJsonPtrExpr(mutable, "/library/tags/2", "java");
+        jsonUtil.setValueByJsonPtrExpr(mutable, "/library/owner/name", "SunYu");
+        Assertions.assertEquals(mutable, v2.root());
+        // 路径经过值节点、数组索引不是数字时无法设置，两种方式结果一致
+        Assertions.assertNull(v1.set("/library/shop/name/x", 1));
+        Assertions.assertFalse(jsonUtil.setValueByJsonPtrExpr(mutable, "/library/shop/name/x", 1));
+        Assertions.assertNull(v1.set("/library/books/title", "x"));
+        Assertions.assertFalse(jsonUtil.setValueByJsonPtrExpr(mutable, "/library/books/title", "x"));
+        Assertions.assertNull(v1.set("/library/books/abc/title", "x"));
+        Assertions.assertFalse(jsonUtil.setValueByJsonPtrExpr(mutable, "/library/books/abc/title", "x"));
+        Assertions.assertEquals(mutable, v2.root());
+
+        // 返回的节点被多个版本共享，修改前先 deepCopy，副本的修改不影响任何版本
+        ObjectNode shop = v2.get("/library/shop").deepCopy();
+        shop.put("name", "新书店");
+        Assertions.assertEquals("书店", v1.get("/library/shop/name").asText());
+        Assertions.assertEquals("书店", v2.get("/library/shop/name").asText());
+        // 直接修改共享节点会同时改变新旧版本
+        ((ObjectNode) v2.get("/library/shop")).put("name", "新书店");
+        Assertions.assertEquals("新书店", v1.get("/library/shop/name").asText());
+
+        // 多线程无锁读取，同时有一个线程持续更新，读取方始终看到完整的版本
+        ObjectNode doc = jsonUtil.createObjectNode();
+        for (int i = 0; i < 100; i++) {
+            ObjectNode group = doc.putObject("g" + i);
+            for (int j = 0; j < 10; j++) {
+                group.put("k" + j, i * j);
+            }
+        }
+        AtomicReference<PersistentJsonTree> ref = new AtomicReference<>(jsonUtil.persistentTree(doc));
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        List<Future<Long>> futures = new ArrayList<>();
+        for (int t = 0; t < 2; t++) {
+            futures.add(executor.submit(() -> {
+                long reads = 0;
+                for (int i = 0; i < 10000; i++) {
+                    JsonNode value = ref.get().get("/g" + (i % 100) + "/k1");
+                    if (value != null && value.asInt() == i % 100) {
+                        reads++;
+                    }
+                }
+                return reads;
+            }));
+        }
+        Future<?> writer = executor.submit(() -> {
+            for (int i = 0; i < 1000; i++) {
+                int n = i;
+                ref.updateAndGet(current -> current.set("/g" + (n % 100) + "/k0", n));
+            }
+        });
+        writer.get();
+        for (Future<Long> future : futures) {
+            Assertions.assertEquals(10000L, future.get());
+        }
+        executor.shutdown();
+        Assertions.assertEquals(999, ref.get().get("/g99/k0").asInt());
+        Assertions.assertEquals(0, jsonUtil.persistentTree(doc).get("/g99/k0").asInt());
+        jsonUtil.close();
+    }
+
+    @Test
+    void t018() throws Exception {
+        JsonUtil jsonUtil = JsonUtil.builder().build();
+        JsonUtil pipelined = JsonUtil.builder().enablePipelinedDecompression().build();
+        File raw = File.createTempFile("books", ".json");
+        File gz = File.createTempFile("books", ".json.gz");
+        File zz = File.createTempFile("books", ".json.zz");
+        raw.deleteOnExit();
+        gz.deleteOnExit();
+        zz.deleteOnExit();
+
+        // 按扩展名压缩输出
+        int count = 2000;
+        for (File file : new File[]{raw, gz, zz}) {
+            try (JsonArrayWriter writer = jsonUtil.arrayWriter().wrapper("/library/books").open(file)) {
+                for (long i = 0; i < count; i++) {
+                    Book book = new Book();
+                    book.setId(i);
+                    book.setTitle("title" + (i % 100));
+                    book.setPrice(i % 1000 / 10.0);
+                    writer.write(book);
+                }
+            }
+        }
+        byte[] gzBytes = Files.readAllBytes(gz.toPath());
+        byte[] zzBytes = Files.readAllBytes(zz.toPath());
+        Assertions.assertEquals(0x1f, gzBytes[0] & 0xff);
+        Assertions.assertEquals(0x8b, gzBytes[1] & 0xff);
+        Assertions.assertEquals(0x78, zzBytes[0] & 0xff);
+        Assertions.assertTrue(gz.length() < raw.length());
+        Assertions.assertTrue(zz.length() < raw.length());
+
+        // 各文件接口自动识别压缩格式
+        JsonNode expected = jsonUtil.readTree(raw);
+        Assertions.assertEquals(count, expected.at("/library/books").size());
+        Assertions.assertEquals(expected, jsonUtil.readTree(gz));
+        Assertions.assertEquals(expected, jsonUtil.readTree(zz));
+        Assertions.assertEquals(expected, pipelined.readTree(gz));
+        Assertions.assertEquals(expected, pipelined.readTree(zz));
+        List<JsonNode> hits = new ArrayList<>();
+        jsonUtil.query(gz, "/library/books[?price>99]", hits::add);
+        Assertions.assertEquals(count / 1000 * 9, hits.size());
+        List<ObjectNode> patch = new ArrayList<>();
+        jsonUtil.diff(raw, gz, patch::add);
+        Assertions.assertTrue(patch.isEmpty());
+        Assertions.assertEquals(count, jsonUtil.columnReader("/library/books").longColumn("id").read(zz).size());
+        Assertions.assertEquals(count, pipelined.columnReader("/library/books").longColumn("id").read(gz).size());
+        try (InputStream in = Files.newInputStream(gz.toPath())) {
+            Assertions.assertEquals(count, jsonUtil.columnReader("/library/books").longColumn("id").read(in).size());
+        }
+        File out = File.createTempFile("books", ".out.gz");
+        out.deleteOnExit();
+        jsonUtil.transformer().include("/library/books/*/id").transform(zz, out);
+        JsonNode transformed = jsonUtil.readTree(out);
+        Assertions.assertEquals(count, transformed.at("/library/books").size());
+        Assertions.assertEquals(jsonUtil.readTree("{\"id\":\"0\"}"), transformed.at("/library/books/0"));
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        try (InputStream in = Files.newInputStream(raw.toPath())) {
+            jsonUtil.transformer().compress(CompressionType.GZIP).transform(in, buffer);
+        }
+        byte[] compressed = buffer.toByteArray();
+        Assertions.assertEquals(0x1f, compressed[0] & 0xff);
+        Assertions.assertEquals(count, jsonUtil.columnReader("/library/books")
+                .longColumn("id").read(new ByteArrayInputStream(compressed)).size());
+
+        // 压缩数据损坏时解压错误传递给解析线程，不会一直等待
+        File broken = File.createTempFile("broken", ".json.gz");
+        broken.deleteOnExit();
+        Files.write(broken.toPath(), Arrays.copyOf(gzBytes, gzBytes.length / 2));
+        Assertions.assertNull(jsonUtil.readTree(broken));
+        Assertions.assertNull(pipelined.readTree(broken));
+        pipelined.close();
+        jsonUtil.close();
+    }
+
+    @Test
+    void t019() throws Exception {
+        JsonUtil jsonUtil = JsonUtil.builder().build();
+        Map<String, Object> a = new LinkedHashMap<>();
+        a.put("title", "Java编程思想\n\"第4版\"");
+        a.put("price", 108.0);
+        a.put("tags", new String[]{"java", "😀"});
+        a.put("id", 1L);
+        Map<String, Object> b = new HashMap<>();
+        b.put("id", 1L);
+        b.put("tags", new String[]{"java", "😀"});
+        b.put("price", 108);
+        b.put("title", "Java编程思想\n\"第4版\"");
+        // 字段排序，只转义引号、反斜杠和控制字符，long 按 objToJson 的规则输出为字符串
+        Assertions.assertEquals("{\"id\":\"1\",\"price\":108,\"tags\":[\"java\",\"😀\"],\"title\":\"Java编程思想\\n\\\"第4版\\\"\"}",
+                jsonUtil.objToCanonicalJson(a));
+        // 字段顺序、数值写法不同时摘要一致
+        Assertions.assertEquals(jsonUtil.hash(a), jsonUtil.hash(b));
+        Assertions.assertNotEquals(jsonUtil.hash(a), jsonUtil.hash(jsonUtil.readTree("{\"id\":\"2\"}")));
+
+        // 数值按 ECMAScript 规则输出：最短还原位数，[1e-6, 1e21) 使用普通写法
+        Assertions.assertEquals("[1,1,0,0.1,1e+21,1.5e-8,1.5e+300,1e-7,0.000001,100000000000000000000,1.2345678901234568e+22]",
+                jsonUtil.objToCanonicalJson(jsonUtil.readTree(
+                        "[1.0,1e0,-0.0,0.10,1e21,1.5e-8,1.5e300,1e-7,0.000001,1e20,12345678901234567890123.0]")));
+        // RFC 8785 附录 B 的 IEEE 754 测试数据
+        String[][] vectors = {
+                {"0000000000000000", "0"},
+                {"8000000000000000", "0"},
+                {"0000000000000001", "5e-324"},
+                {"8000000000000001", "-5e-324"},
+                {"7fefffffffffffff", "1.7976931348623157e+308"},
+                {"ffefffffffffffff", "-1.7976931348623157e+308"},
+                {"4340000000000000", "9007199254740992"},
+                {"c340000000000000", "-9007199254740992"},
+                {"4430000000000000", "295147905179352830000"},
+                {"44b52d02c7e14af5", "9.999999999999997e+22"},
+                {"44b52d02c7e14af6", "1e+23"},
+                {"44b52d02c7e14af7", "1.0000000000000001e+23"},
+                {"444b1ae4d6e2ef4e", "999999999999999700000"},
+                {"444b1ae4d6e2ef4f", "999999999999999900000"},
+                {"444b1ae4d6e2ef50", "1e+21"},
+                {"3eb0c6f7a0b5ed8c", "9.999999999999997e-7"},
+                {"3eb0c6f7a0b5ed8d", "0.000001"},
+                {"41b3de4355555553", "333333333.3333332"},
+                {"41b3de4355555554", "333333333.33333325"},
+                {"41b3de4355555555", "333333333.3333333"},
+                {"41b3de4355555556", "333333333.3333334"},
+                {"41b3de4355555557", "333333333.33333343"},
+                {"becbf647612f3696", "-0.0000033333333333333333"},
+                {"43143ff3c1cb0959", "1424953923781206.2"}};
+        for (String[] vector : vectors) {
+            double value = Double.longBitsToDouble(Long.parseUnsignedLong(vector[0], 16));
+            Assertions.assertEquals(vector[1], jsonUtil.objToCanonicalJson(value), vector[0]);
+            // 规范形式能还原为同一个 double
+            Assertions.assertTrue(value == Double.parseDouble(vector[1]), vector[0]);
+        }
+        // JDK 19 之前 Double.toString 输出 2.82879384806159008E17，不是最短形式
+        Assertions.assertEquals("282879384806159000", jsonUtil.objToCanonicalJson(2.82879384806159E17));
+        // 同一数值的不同写法、不同来源摘要一致
+        String hash = jsonUtil.hash(jsonUtil.readTree("[1e21,1.5e300,1e-7]"));
+        Assertions.assertEquals(hash, jsonUtil.hash(jsonUtil.readTree("[1000000000000000000000,15e299,0.0000001]")));
+        Assertions.assertEquals(hash, jsonUtil.hash(Arrays.asList(1e21, 1.5e300, 1e-7)));
+        Assertions.assertEquals(hash, jsonUtil.hash(Arrays.asList(new BigDecimal("1E+21"), new BigDecimal("1.50E+300"), new BigDecimal("0.00000010"))));
+
+        // 超出 2^53 的整数、BigInteger、BigDecimal、float 按 double 取值，对象、序列化后 readTree、文件三种来源摘要一致
+        Measure measure = new Measure();
+        measure.total = 9007199254740993L;
+        measure.big = new BigInteger("123456789012345678901234567890");
+        measure.amount = new BigDecimal("3.14159265358979323846");
+        measure.ratio = 0.1f;
+        measure.score = 2.82879384806159E17;
+        Assertions.assertEquals("{\"amount\":3.141592653589793,\"big\":1.2345678901234568e+29,\"ratio\":0.1,"
+                + "\"score\":282879384806159000,\"total\":9007199254740992}", jsonUtil.objToCanonicalJson(measure));
+        File measureFile = File.createTempFile("measure", ".json");
+        measureFile.deleteOnExit();
+        Files.write(measureFile.toPath(), jsonUtil.objToJson(measure).getBytes(StandardCharsets.UTF_8));
+        String measureHash = jsonUtil.hash(measure);
+        Assertions.assertEquals(measureHash, jsonUtil.hash(jsonUtil.readTree(jsonUtil.objToJson(measure))));
+        Assertions.assertEquals(measureHash, jsonUtil.hash(measureFile));
+
+        // 对象、JsonNode、文件、压缩文件的摘要一致
+        File raw = File.createTempFile("books", ".json");
+        File gz = File.createTempFile("books", ".json.gz");
+        raw.deleteOnExit();
+        gz.deleteOnExit();
+        List<Book> books = new ArrayList<>();
+        for (long i = 0; i < 2000; i++) {
+            Book book = new Book();
+            book.setId(i);
+            book.setTitle("title" + (i % 100));
+            book.setPrice(i % 1000 / 10.0);
+            books.add(book);
+        }
+        for (File file : new File[]{raw, gz}) {
+            try (JsonArrayWriter writer = jsonUtil.arrayWriter().open(file)) {
+                writer.writeAll(books);
+            }
+        }
+        String objHash = jsonUtil.hash(books);
+        Assertions.assertEquals(64, objHash.length());
+        Assertions.assertEquals(objHash, jsonUtil.hash(jsonUtil.readTree(raw)));
+        Assertions.assertEquals(objHash, jsonUtil.hash(raw));
+        Assertions.assertEquals(objHash, jsonUtil.hash(gz));
+        // 摘要即规范 JSON 的 SHA-256
+        MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+        Assertions.assertEquals(objHash, HexUtil.encodeHexStr(
+                sha256.digest(jsonUtil.objToCanonicalJson(books).getBytes(StandardCharsets.UTF_8))));
+        jsonUtil.close();
+    }
+
+    public static class Measure {
+        public long total;
+        public BigInteger big;
+        public BigDecimal amount;
+        public float ratio;
+        public double score;
+    }
+
+    /**
+     * 序列化器无法创建的类型，用于测试预热失败
+     */
+    @JsonSerialize(using = BrokenSerializer.class)
+    public static class BrokenBean {
+    }
+
+    public static class BrokenSerializer extends StdSerializer<BrokenBean> {
+        private static final long serialVersionUID = 1L;
+
+        public BrokenSerializer() {
+            super(BrokenBean.class);
+            throw new ExceptionInInitializerError("序列化器初始化失败");
+        }
+
+        @Override
+        public void serialize(BrokenBean value, JsonGenerator gen, SerializerProvider provider) {
+        }
+    }
+
+    public static class Book {
+        private Long id;
+        private String title;
+        private Double price;
+
+        public Long getId() {
+            return id;
+        }
+
+        public void setId(Long id) {
+            this.id = id;
+        }
+
+        public String getTitle() {
+            return title;
+        }
+
+        public void setTitle(String title) {
+            this.title = title;
+        }
+
+        public Double getPrice() {
+            return price;
+        }
+
+        public void setPrice(Double price) {
+            this.price = price;
+        }
+    }
+
+    @JsonCompiled
+    public static class Order {
+        private Long id;
+        private int count;
+        private String code;
+        private Double amount;
+        private boolean paid;
+        @JsonIgnore
+        private String remark;
+        private LocalDateTime createTime;
+        private LocalDate payDate;
+        private List<Book> books;
+
+        public Long getId() {
+            return id;
+        }
+
+        public void setId(Long id) {
+            this.id = id;
+        }
+
+        public int getCount() {
+            return count;
+        }
+
+        public void setCount(int count) {
+            this.count = count;
+        }
+
+        @JsonProperty("orderCode")
+        public String getCode() {
+            return code;
+        }
+
+        public void setCode(String code) {
+            this.code = code;
+        }
+
+        public Double getAmount() {
+            return amount;
+        }
+
+        public void setAmount(Double amount) {
+            this.amount = amount;
+        }
+
+        public boolean isPaid() {
+            return paid;
+        }
+
+        public void setPaid(boolean paid) {
+            this.paid = paid;
+        }
+
+        public String getRemark() {
+            return remark;
+        }
+
+        public void setRemark(String remark) {
+            this.remark = remark;
+        }
+
+        public LocalDateTime getCreateTime() {
+            return createTime;
+        }
+
+        public void setCreateTime(LocalDateTime createTime) {
+            this.createTime = createTime;
+        }
+
+        public LocalDate getPayDate() {
+            return payDate;
+        }
+
+        public void setPayDate(LocalDate payDate) {
+            this.payDate = payDate;
+        }
+
+        public List<Book> getBooks() {
+            return books;
+        }
+
+        public void setBooks(List<Book> books) {
+            this.books = books;
+        }
+    }
+
+    public static class VipOrder extends Order {
+        private Integer level;
+
+        public Integer getLevel() {
+            return level;
+        }
+
+        public void setLevel(Integer level) {
+            this.level = level;
+        }
+    }
+
+    public abstract static class OrderMixIn {
+        @JsonIgnore
+        public abstract int getCount();
+    }
+
+    @JsonCompiled
+    public static class Point {
+        public Long id;
+        public int x;
+        public List<Book> books;
+        public transient String cache;
+        private String name;
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+    }
+
+}